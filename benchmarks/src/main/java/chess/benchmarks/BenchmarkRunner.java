@@ -0,0 +1,27 @@
+package chess.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so every result comes with the
+ * bytes allocated per operation ({@code gc.alloc.rate.norm}) next to its time.
+ * <p>
+ * Takes the usual JMH command line, so {@code java -jar benchmarks.jar Board} runs only
+ * the board benchmarks and {@code -f 3 -i 10} overrides the forks and iterations the
+ * benchmark classes ask for.
+ */
+public class BenchmarkRunner
+{
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException
+    {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,74 @@
+package chess.benchmarks;
+
+import chess.ChessBoard;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Perft;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the {@link ChessBoard} operations everything else is built on: square lookups,
+ * piece placement, and hashing and comparing whole boards
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark
+{
+    private ChessBoard board;
+    private ChessBoard sameBoard;
+    private ChessPiece[] pieces;
+
+    @Setup
+    public void setUp()
+    {
+        board = Perft.position("kiwipete").newGame().getBoard();
+        sameBoard = new ChessBoard(board);
+        pieces = new ChessPiece[ChessBoard.SquareCount];
+        for(int square = 0; square < ChessBoard.SquareCount; square++)
+        {
+            pieces[square] = board.getPiece(square);
+        }
+    }
+
+    @Benchmark
+    public void getPiece(Blackhole blackhole)
+    {
+        for(int square = 0; square < ChessBoard.SquareCount; square++)
+        {
+            blackhole.consume(board.getPiece(ChessPosition.of(square)));
+        }
+    }
+
+    /**
+     * Puts every square's piece back where it already is, which leaves the board unchanged
+     * between invocations but still updates the bitboards and the Zobrist key each time
+     */
+    @Benchmark
+    public ChessBoard addPiece()
+    {
+        for(int square = 0; square < ChessBoard.SquareCount; square++)
+        {
+            board.addPiece(ChessPosition.of(square), pieces[square]);
+        }
+        return board;
+    }
+
+    @Benchmark
+    public int boardHashCode()
+    {
+        return board.hashCode();
+    }
+
+    @Benchmark
+    public boolean boardEquals()
+    {
+        return board.equals(sameBoard);
+    }
+}
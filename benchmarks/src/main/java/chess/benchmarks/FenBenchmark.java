@@ -0,0 +1,49 @@
+package chess.benchmarks;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Perft;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading and writing the standard perft positions in FEN.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FenBenchmark
+{
+    @Param({"start", "kiwipete", "endgame", "middlegame"})
+    public String position;
+
+    private String fen;
+    private ChessGame game;
+    private final StringBuilder text = new StringBuilder(90);
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        fen = Perft.position(position).fen();
+        game = Fen.parse(fen);
+    }
+
+    @Benchmark
+    public ChessGame read()
+    {
+        Fen.read(fen, game);
+        return game;
+    }
+
+    @Benchmark
+    public int write()
+    {
+        text.setLength(0);
+        Fen.write(game, text);
+        return text.length();
+    }
+}
@@ -0,0 +1,74 @@
+package chess.benchmarks;
+
+import chess.ChessGame;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.Perft;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the rule checks a client or server runs on every move, in an opening,
+ * a middlegame and an endgame position, and in two positions in check, where
+ * {@link ChessGame#isInCheckmate} has to look for a way out: a back-rank mate,
+ * and the same check with a bishop that can block it
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark
+{
+    private static final Map<String, String> CheckPositions = Map.of(
+            "mated", "6k1/8/8/8/8/8/5PPP/1r4K1 w - - 0 1",
+            "check", "6k1/8/8/8/8/4B3/5PPP/1r4K1 w - - 0 1");
+
+    @Param({"start", "kiwipete", "endgame", "mated", "check"})
+    public String position;
+
+    private ChessGame game;
+    private ChessPosition[] ownPieces;
+
+    @Setup
+    public void setUp()
+    {
+        String fen = CheckPositions.get(position);
+        game = fen != null ? Fen.parse(fen) : Perft.position(position).newGame();
+        long pieces = game.getBoard().getPieces(game.getTeamTurn());
+        ownPieces = new ChessPosition[Long.bitCount(pieces)];
+        for(int i = 0; pieces != 0; i++, pieces &= pieces - 1)
+        {
+            ownPieces[i] = ChessPosition.of(Long.numberOfTrailingZeros(pieces));
+        }
+    }
+
+    /**
+     * Asks for the valid moves of every piece of the side to move, as a client
+     * highlighting moves would
+     */
+    @Benchmark
+    public void validMoves(Blackhole blackhole)
+    {
+        for(ChessPosition square : ownPieces)
+        {
+            blackhole.consume(game.validMoves(square));
+        }
+    }
+
+    @Benchmark
+    public boolean isInCheckmate()
+    {
+        return game.isInCheckmate(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInCheck()
+    {
+        return game.isInCheck(game.getTeamTurn());
+    }
+}
@@ -0,0 +1,85 @@
+package chess.benchmarks;
+
+import chess.ChessGame;
+import chess.MoveList;
+import chess.Perft;
+import chess.San;
+import chess.Uci;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing and reading every valid move of a position in SAN and UCI
+ * form. Each operation handles the move after the last one, so the score is
+ * moves per microsecond.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NotationBenchmark
+{
+    @Param({"kiwipete", "middlegame"})
+    public String position;
+
+    private ChessGame game;
+    private final MoveList moves = new MoveList();
+    private final MoveList scratch = new MoveList();
+    private String[] san;
+    private String[] uci;
+    private final StringBuilder text = new StringBuilder(8);
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        game = Perft.position(position).newGame();
+        game.validMoves(game.getTeamTurn(), moves);
+        san = new String[moves.size()];
+        uci = new String[moves.size()];
+        for(int i = 0; i < moves.size(); i++)
+        {
+            san[i] = San.encode(game, moves.get(i));
+            uci[i] = Uci.encode(moves.get(i));
+        }
+    }
+
+    private int nextIndex()
+    {
+        next = next + 1 == moves.size() ? 0 : next + 1;
+        return next;
+    }
+
+    @Benchmark
+    public int encodeSan()
+    {
+        text.setLength(0);
+        San.encode(game, moves.get(nextIndex()), text, scratch);
+        return text.length();
+    }
+
+    @Benchmark
+    public int decodeSan()
+    {
+        String move = san[nextIndex()];
+        return San.decode(game, move, 0, move.length(), scratch);
+    }
+
+    @Benchmark
+    public int encodeUci()
+    {
+        text.setLength(0);
+        Uci.encode(moves.get(nextIndex()), text);
+        return text.length();
+    }
+
+    @Benchmark
+    public int decodeUci()
+    {
+        String move = uci[nextIndex()];
+        return Uci.decode(game, move, 0, move.length(), scratch);
+    }
+}
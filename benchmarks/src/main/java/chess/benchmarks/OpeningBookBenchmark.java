@@ -0,0 +1,110 @@
+package chess.benchmarks;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.MoveList;
+import chess.PackedMove;
+import chess.engine.OpeningBook;
+import chess.engine.OpeningBookBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures opening book lookup throughput on a book of random games, for keys the
+ * book has and keys it does not. Run with {@code -t} to see lookups from several
+ * threads share one mapping.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpeningBookBenchmark
+{
+    private static final int KeyCount = 4096;
+
+    @State(Scope.Benchmark)
+    public static class Book
+    {
+        @Param({"100000"})
+        public int games;
+
+        OpeningBook book;
+        final long[] hits = new long[KeyCount];
+        final long[] misses = new long[KeyCount];
+        private Path path;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception
+        {
+            SplittableRandom random = new SplittableRandom(240);
+            OpeningBookBuilder builder = new OpeningBookBuilder(20);
+            List<Long> keys = new ArrayList<>();
+            for(int i = 0; i < games; i++)
+            {
+                builder.addGame(randomGame(random, 20, keys));
+            }
+            path = Files.createTempFile("benchmark", ".book");
+            builder.write(path, 1);
+            book = OpeningBook.open(path);
+
+            for(int i = 0; i < KeyCount; i++)
+            {
+                hits[i] = keys.get(random.nextInt(keys.size()));
+                misses[i] = random.nextLong();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException
+        {
+            Files.deleteIfExists(path);
+        }
+
+        private static List<ChessMove> randomGame(SplittableRandom random, int plies, List<Long> keys)
+        {
+            ChessGame game = new ChessGame();
+            MoveList legal = new MoveList();
+            List<ChessMove> moves = new ArrayList<>();
+            for(int ply = 0; ply < plies; ply++)
+            {
+                legal.clear();
+                game.validMoves(game.getTeamTurn(), legal);
+                if(legal.isEmpty())
+                {
+                    break;
+                }
+                int move = legal.get(random.nextInt(legal.size()));
+                keys.add(game.zobristKey());
+                moves.add(PackedMove.unpack(move));
+                game.makeMove(move);
+            }
+            return moves;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor
+    {
+        int next;
+    }
+
+    @Benchmark
+    public int lookupHit(Book book, Cursor cursor)
+    {
+        return book.book.bestMove(book.hits[cursor.next++ & (KeyCount - 1)]);
+    }
+
+    @Benchmark
+    public int lookupMiss(Book book, Cursor cursor)
+    {
+        return book.book.bestMove(book.misses[cursor.next++ & (KeyCount - 1)]);
+    }
+}
@@ -0,0 +1,76 @@
+package chess.benchmarks;
+
+import chess.PgnGame;
+import chess.PgnReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures reading a file of games with {@link PgnReader}, on worker pools of
+ * different sizes. Each operation reads the whole file, so games per second is
+ * the score times {@link #games}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PgnBenchmark
+{
+    private static final String Game = """
+            [Event "Paris"]
+            [Site "Paris FRA"]
+            [Date "1858.??.??"]
+            [Round "?"]
+            [White "Morphy, Paul"]
+            [Black "Duke Karl / Count Isouard"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 d6 3. d4 Bg4 {This is a weak move already.} 4. dxe5 Bxf3 5. Qxf3 dxe5
+            6. Bc4 Nf6 7. Qb3 Qe7 8. Nc3 c6 9. Bg5 b5 10. Nxb5 cxb5 11. Bxb5+ Nbd7
+            12. O-O-O Rd8 13. Rxd7 Rxd7 14. Rd1 Qe6 15. Bxd7+ Nxd7 16. Qb8+ Nxb8 17. Rd8# 1-0
+
+            """;
+
+    @Param({"10000"})
+    public int games;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private Path file;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException
+    {
+        file = Files.createTempFile("benchmark", ".pgn");
+        Files.writeString(file, Game.repeat(games));
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        pool.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public int readAll() throws Exception
+    {
+        return pool.submit(() -> {
+            try(Stream<PgnGame> stream = PgnReader.games(file))
+            {
+                return stream.mapToInt(game -> game.moves().size()).sum();
+            }
+        }).get();
+    }
+}
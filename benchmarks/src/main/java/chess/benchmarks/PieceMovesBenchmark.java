@@ -0,0 +1,61 @@
+package chess.benchmarks;
+
+import chess.ChessBoard;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Perft;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times {@link ChessPiece#pieceMoves} for every piece of one type on a busy middlegame board
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PieceMovesBenchmark
+{
+    @Param({"KING", "QUEEN", "BISHOP", "KNIGHT", "ROOK", "PAWN"})
+    public ChessPiece.PieceType type;
+
+    private ChessBoard board;
+    private ChessPosition[] positions;
+    private ChessPiece[] pieces;
+
+    @Setup
+    public void setUp()
+    {
+        board = Perft.position("kiwipete").newGame().getBoard();
+        List<ChessPosition> found = new ArrayList<>();
+        for(int square = 0; square < ChessBoard.SquareCount; square++)
+        {
+            ChessPiece piece = board.getPiece(square);
+            if(piece != null && piece.getPieceType() == type)
+            {
+                found.add(ChessPosition.of(square));
+            }
+        }
+        positions = found.toArray(new ChessPosition[0]);
+        pieces = new ChessPiece[positions.length];
+        for(int i = 0; i < positions.length; i++)
+        {
+            pieces[i] = board.getPiece(positions[i]);
+        }
+    }
+
+    @Benchmark
+    public void pieceMoves(Blackhole blackhole)
+    {
+        for(int i = 0; i < positions.length; i++)
+        {
+            blackhole.consume(pieces[i].pieceMoves(board, positions[i]));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package chess.benchmarks;
+
+import chess.ChessGame;
+import chess.Perft;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times a fixed-depth search of a middlegame position at several thread counts, to show
+ * how much Lazy SMP shortens the time to reach a depth. Each invocation starts from an
+ * empty transposition table, since a warm one would hide most of the work.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark
+{
+    @Param({"1", "2", "4", "8", "16"})
+    public int threads;
+
+    @Param({"7"})
+    public int depth;
+
+    private ChessGame game;
+    private TranspositionTable table;
+    private Search search;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        game = Perft.position("middlegame").newGame();
+        table = new TranspositionTable(64);
+        search = new Search(table, threads);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable()
+    {
+        table.clear();
+    }
+
+    @Benchmark
+    public SearchResult searchToDepth()
+    {
+        return search.search(game, SearchLimits.depth(depth));
+    }
+}
@@ -1,7 +1,6 @@
 package chess;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
@@ -11,12 +10,51 @@ import java.util.Map;
  */
 public class ChessBoard {
 
-    private final Map<ChessPosition, ChessPiece> pieces;
+    public static final int SquareCount = 64;
+
+    private static final int PieceTypeCount = ChessPiece.PieceType.values().length;
+
+    // square-indexed mailbox for getPiece, plus one occupancy word per color/type and per color
+    private final ChessPiece[] squares;
+    private final long[] pieceBitboards;
+    private final long[] teamBitboards;
+    private final int[] kingSquares;
+    private long zobristKey;
+
+    // running material and piece-square sums from white's side, and the game phase
+    private int middlegameScore;
+    private int endgameScore;
+    private int phase;
 
     public ChessBoard() {
-        pieces = new HashMap<>();
+        squares = new ChessPiece[SquareCount];
+        pieceBitboards = new long[ChessGame.TeamColor.values().length * PieceTypeCount];
+        teamBitboards = new long[ChessGame.TeamColor.values().length];
+        kingSquares = new int[] {NoKing, NoKing};
+    }
+
+    /**
+     * Creates a board with the same pieces as another, sharing no state with it
+     *
+     * @param other the board to copy
+     */
+    public ChessBoard(ChessBoard other)
+    {
+        squares = other.squares.clone();
+        pieceBitboards = other.pieceBitboards.clone();
+        teamBitboards = other.teamBitboards.clone();
+        kingSquares = other.kingSquares.clone();
+        zobristKey = other.zobristKey;
+        middlegameScore = other.middlegameScore;
+        endgameScore = other.endgameScore;
+        phase = other.phase;
     }
 
+    /**
+     * The square index {@link #getKingSquare} returns for a team with no king on the board
+     */
+    public static final int NoKing = -1;
+
     /**
      * Adds a chess piece to the chessboard
      *
@@ -24,7 +62,112 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        pieces.put(position, piece);
+        addPiece(position.getIndex(), piece);
+    }
+
+    /**
+     * Adds a chess piece to the chessboard, replacing anything already on the square
+     *
+     * @param square the square index to add the piece to
+     * @param piece  the piece to add, or null to empty the square
+     */
+    public void addPiece(int square, ChessPiece piece)
+    {
+        clearSquare(square);
+        if(piece != null)
+        {
+            placePiece(square, piece);
+        }
+    }
+
+    /**
+     * Removes the chess piece at a position
+     *
+     * @param position the position to empty
+     * @return the piece that was removed, or null if the position was empty
+     */
+    public ChessPiece removePiece(ChessPosition position)
+    {
+        return removePiece(position.getIndex());
+    }
+
+    /**
+     * Removes the chess piece on a square
+     *
+     * @param square the square index to empty
+     * @return the piece that was removed, or null if the square was empty
+     */
+    public ChessPiece removePiece(int square)
+    {
+        ChessPiece piece = squares[square];
+        clearSquare(square);
+        return piece;
+    }
+
+    /**
+     * Moves the piece at one position to another, removing anything already there
+     *
+     * @param from the position of the piece to move
+     * @param to   the position to move it to
+     * @return the piece that was captured at the destination, or null if it was empty
+     * @throws IllegalArgumentException if there is no piece at {@code from}; the board is
+     *                                  left unchanged
+     */
+    public ChessPiece movePiece(ChessPosition from, ChessPosition to)
+    {
+        return movePiece(from.getIndex(), to.getIndex());
+    }
+
+    /**
+     * Moves the piece on one square to another, removing anything already there
+     *
+     * @param from the square index of the piece to move
+     * @param to   the square index to move it to
+     * @return the piece that was captured on the destination, or null if it was empty
+     * @throws IllegalArgumentException if there is no piece on {@code from}; the board is
+     *                                  left unchanged
+     */
+    public ChessPiece movePiece(int from, int to)
+    {
+        ChessPiece piece = squares[from];
+        if(piece == null)
+        {
+            throw new IllegalArgumentException("no piece on square " + from + " to move");
+        }
+        ChessPiece captured = squares[to];
+        clearSquare(to);
+        clearSquare(from);
+        placePiece(to, piece);
+        return captured;
+    }
+
+    /**
+     * Gets the Zobrist key of the pieces on this board, which is kept up to date as
+     * pieces are added, moved and removed. Boards with the same pieces on the same
+     * squares always have the same key. Whose turn it is, castling rights and the
+     * en-passant square are not part of a board; their keys are left for the game
+     * to fold in.
+     *
+     * @return the 64-bit key
+     */
+    public long zobristKey()
+    {
+        return zobristKey;
+    }
+
+    /**
+     * Gets the material and piece-square score of this board, blended between its
+     * middlegame and endgame values by how much material is left. The sums behind it
+     * are kept up to date as pieces are added, moved and removed, so this is a few
+     * arithmetic operations rather than a scan of the board.
+     *
+     * @return the score in centipawns from white's side; positive is good for white
+     */
+    public int pieceSquareScore()
+    {
+        int middlegameWeight = Math.min(phase, PieceSquareTables.MaxPhase);
+        return (middlegameScore * middlegameWeight + endgameScore * (PieceSquareTables.MaxPhase - middlegameWeight))
+                / PieceSquareTables.MaxPhase;
     }
 
     /**
@@ -35,7 +178,141 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return pieces.get(position);
+        return squares[position.getIndex()];
+    }
+
+    /**
+     * Gets the chess piece on a square, by square index
+     *
+     * @param square the square index, as given by {@link ChessPosition#getIndex()}
+     * @return Either the piece on the square, or null if the square is empty
+     */
+    public ChessPiece getPiece(int square)
+    {
+        return squares[square];
+    }
+
+    /**
+     * @return a bitboard with bit n set for every square index n holding a piece
+     * of the given team and type
+     */
+    public long getPieces(ChessGame.TeamColor team, ChessPiece.PieceType type)
+    {
+        return pieceBitboards[ChessPiece.indexOf(team, type)];
+    }
+
+    /**
+     * @return a bitboard of every square holding a piece of the given team
+     */
+    public long getPieces(ChessGame.TeamColor team)
+    {
+        return teamBitboards[team.ordinal()];
+    }
+
+    /**
+     * @return a bitboard of every occupied square
+     */
+    public long getOccupied()
+    {
+        return teamBitboards[0] | teamBitboards[1];
+    }
+
+    /**
+     * @return the square index of the team's king, or {@link #NoKing} if it has none
+     */
+    public int getKingSquare(ChessGame.TeamColor team)
+    {
+        return kingSquares[team.ordinal()];
+    }
+
+    /**
+     * Determines if any piece of a team attacks a position, whether or not the position
+     * is occupied
+     *
+     * @param position the position that might be attacked
+     * @param attacker the team whose pieces might attack it
+     * @return true if at least one of the attacker's pieces attacks the position
+     */
+    public boolean isSquareAttacked(ChessPosition position, ChessGame.TeamColor attacker)
+    {
+        return isSquareAttacked(position.getIndex(), attacker);
+    }
+
+    /**
+     * Determines if any piece of a team attacks a square, whether or not the square
+     * is occupied
+     *
+     * @param square   the square index that might be attacked
+     * @param attacker the team whose pieces might attack it
+     * @return true if at least one of the attacker's pieces attacks the square
+     */
+    public boolean isSquareAttacked(int square, ChessGame.TeamColor attacker)
+    {
+        return getAttackers(square, getOccupied(), attacker) != 0;
+    }
+
+    /**
+     * Finds the pieces of a team that attack a square by looking outwards from the square:
+     * a knight attacks it if a knight on the square would attack the knight, a rook if a
+     * rook on the square would see the rook, and so on for every piece type.
+     *
+     * @param square   the square index that might be attacked
+     * @param occupied the occupancy sliding pieces are blocked by, usually
+     *                 {@link #getOccupied()} but changed to look through pieces
+     * @param attacker the team whose pieces might attack it
+     * @return a bitboard of the attacker's pieces that attack the square
+     */
+    public long getAttackers(int square, long occupied, ChessGame.TeamColor attacker)
+    {
+        int offset = attacker.ordinal() * PieceTypeCount;
+        long queens = pieceBitboards[offset + ChessPiece.PieceType.QUEEN.ordinal()];
+        // an attacking pawn stands where a defending pawn on the square would attack
+        return (MoveTables.PawnAttacks[attacker.opponent().ordinal()][square]
+                        & pieceBitboards[offset + ChessPiece.PieceType.PAWN.ordinal()])
+                | (MoveTables.KnightAttacks[square] & pieceBitboards[offset + ChessPiece.PieceType.KNIGHT.ordinal()])
+                | (MoveTables.KingAttacks[square] & pieceBitboards[offset + ChessPiece.PieceType.KING.ordinal()])
+                | (SlidingAttacks.bishopAttacks(square, occupied)
+                        & (pieceBitboards[offset + ChessPiece.PieceType.BISHOP.ordinal()] | queens))
+                | (SlidingAttacks.rookAttacks(square, occupied)
+                        & (pieceBitboards[offset + ChessPiece.PieceType.ROOK.ordinal()] | queens));
+    }
+
+    private void placePiece(int square, ChessPiece piece)
+    {
+        long bit = 1L << square;
+        squares[square] = ChessPiece.of(piece.getIndex());
+        pieceBitboards[piece.getIndex()] |= bit;
+        teamBitboards[piece.getTeamColor().ordinal()] |= bit;
+        zobristKey ^= Zobrist.PieceSquare[piece.getIndex()][square];
+        middlegameScore += PieceSquareTables.Middlegame[piece.getIndex()][square];
+        endgameScore += PieceSquareTables.Endgame[piece.getIndex()][square];
+        phase += PieceSquareTables.Phase[piece.getIndex()];
+        if(piece.getPieceType() == ChessPiece.PieceType.KING)
+        {
+            kingSquares[piece.getTeamColor().ordinal()] = square;
+        }
+    }
+
+    private void clearSquare(int square)
+    {
+        ChessPiece piece = squares[square];
+        if(piece != null)
+        {
+            long bit = 1L << square;
+            squares[square] = null;
+            pieceBitboards[piece.getIndex()] &= ~bit;
+            teamBitboards[piece.getTeamColor().ordinal()] &= ~bit;
+            zobristKey ^= Zobrist.PieceSquare[piece.getIndex()][square];
+            middlegameScore -= PieceSquareTables.Middlegame[piece.getIndex()][square];
+            endgameScore -= PieceSquareTables.Endgame[piece.getIndex()][square];
+            phase -= PieceSquareTables.Phase[piece.getIndex()];
+            if(piece.getPieceType() == ChessPiece.PieceType.KING && kingSquares[piece.getTeamColor().ordinal()] == square)
+            {
+                // boards set up by hand can hold more than one king; fall back to any that's left
+                long kings = pieceBitboards[piece.getIndex()];
+                kingSquares[piece.getTeamColor().ordinal()] = kings == 0 ? NoKing : Long.numberOfTrailingZeros(kings);
+            }
+        }
     }
 
     /**
@@ -43,32 +320,39 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        pieces.clear();
-
-        addPiece(new ChessPosition(1,1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(1,2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1,3), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1,4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(1,5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(1,6), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1,7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1,8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        Arrays.fill(squares, null);
+        Arrays.fill(pieceBitboards, 0L);
+        Arrays.fill(teamBitboards, 0L);
+        Arrays.fill(kingSquares, NoKing);
+        zobristKey = 0;
+        middlegameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+
+        addPiece(ChessPosition.of(1,1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1,2), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1,3), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1,4), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(1,5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(1,6), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1,7), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1,8), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
         setupPawns(ChessGame.TeamColor.WHITE, 2);
 
-        addPiece(new ChessPosition(8,1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(8,2), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8,3), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8,4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(8,5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(8,6), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8,7), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8,8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8,1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8,2), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8,3), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8,4), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(8,5), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(8,6), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8,7), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8,8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
         setupPawns(ChessGame.TeamColor.BLACK, 7);
     }
 
     private void setupPawns(ChessGame.TeamColor pieceColor, int row) {
         for(int col = ChessPosition.FirstColumn; col <= ChessPosition.LastColumn; col++) {
-            addPiece(new ChessPosition(row, col), new ChessPiece(pieceColor, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(row, col), ChessPiece.of(pieceColor, ChessPiece.PieceType.PAWN));
         }
     }
 
@@ -80,7 +364,7 @@ public class ChessBoard {
         {
             for(int c = ChessPosition.FirstColumn; c <= ChessPosition.LastColumn; c++)
             {
-                ChessPiece piece = getPiece(new ChessPosition(r, c));
+                ChessPiece piece = getPiece(ChessPosition.of(r, c));
                 if(piece != null)
                 {
                     description.append(piece.shortCode());
@@ -98,19 +382,7 @@ public class ChessBoard {
     @Override
     public int hashCode()
     {
-        int code = 0;
-        for(int r = ChessPosition.BottomRow; r <= ChessPosition.TopRow; r++)
-        {
-            for(int c = ChessPosition.FirstColumn; c <= ChessPosition.LastColumn; c++)
-            {
-                ChessPiece piece = getPiece(new ChessPosition(r, c));
-                if(piece != null)
-                {
-                    code += piece.hashCode();
-                }
-            }
-        }
-        return code;
+        return Long.hashCode(zobristKey);
     }
 
     @Override
@@ -121,29 +393,6 @@ public class ChessBoard {
             return false;
         }
         ChessBoard other = (ChessBoard) obj;
-        if(other.pieces.size() != pieces.size())
-        {
-            return false;
-        }
-        for(int r = ChessPosition.BottomRow; r <= ChessPosition.TopRow; r++)
-        {
-            for(int c = ChessPosition.FirstColumn; c <= ChessPosition.LastColumn; c++)
-            {
-                ChessPiece piece = getPiece(new ChessPosition(r, c));
-                ChessPiece otherPiece = other.getPiece(new ChessPosition(r, c));
-                if(piece != null)
-                {
-                    if(!piece.equals(otherPiece))
-                    {
-                        return false;
-                    }
-                }
-                else if(otherPiece != null)
-                {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return zobristKey == other.zobristKey && Arrays.equals(pieceBitboards, other.pieceBitboards);
     }
 }
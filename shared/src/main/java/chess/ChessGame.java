@@ -1,5 +1,6 @@
 package chess;
 
+import java.util.Arrays;
 import java.util.Collection;
 
 /**
@@ -10,15 +11,86 @@ import java.util.Collection;
  */
 public class ChessGame {
 
+    /**
+     * Castling right bits, combined into the value returned by {@link #getCastlingRights()}
+     */
+    public static final int WhiteKingside = 1;
+    public static final int WhiteQueenside = 2;
+    public static final int BlackKingside = 4;
+    public static final int BlackQueenside = 8;
+    public static final int AllCastlingRights = WhiteKingside | WhiteQueenside | BlackKingside | BlackQueenside;
+
+    /**
+     * The square index used when there is no en-passant square
+     */
+    public static final int NoSquare = -1;
+
+    // home squares of the kings and rooks, by square index
+    private static final int WhiteKingHome = 4;
+    private static final int BlackKingHome = 60;
+    private static final int[] CastlingRookHomes = {7, 0, 63, 56};
+
+    // castling rights that survive a move to or from each square
+    private static final int[] CastlingRightsKept = new int[ChessBoard.SquareCount];
+
+    static
+    {
+        Arrays.fill(CastlingRightsKept, AllCastlingRights);
+        CastlingRightsKept[WhiteKingHome] &= ~(WhiteKingside | WhiteQueenside);
+        CastlingRightsKept[BlackKingHome] &= ~(BlackKingside | BlackQueenside);
+        for(int i = 0; i < CastlingRookHomes.length; i++)
+        {
+            CastlingRightsKept[CastlingRookHomes[i]] &= ~(1 << i);
+        }
+    }
+
+    private ChessBoard board;
+    private TeamColor teamTurn;
+    private int castlingRights;
+    private int enPassantSquare;
+    private int halfmoveClock;
+    private int fullmoveNumber;
+    private Tablebases tablebases;
+
+    // one packed Undo record per move made with makeMove(int), most recent last, and the
+    // Zobrist key of the position each move was made from
+    private long[] history;
+    private long[] keys;
+    private int historySize;
+
     public ChessGame() {
+        ChessBoard startingBoard = new ChessBoard();
+        startingBoard.resetBoard();
+        history = new long[64];
+        keys = new long[64];
+        setPosition(startingBoard, TeamColor.WHITE, AllCastlingRights, NoSquare, 0, 1);
+    }
 
+    /**
+     * Creates a game in the same position as another, with its own board and move
+     * history, so each can be played on without affecting the other
+     *
+     * @param other the game to copy
+     */
+    public ChessGame(ChessGame other)
+    {
+        board = new ChessBoard(other.board);
+        teamTurn = other.teamTurn;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        history = other.history.clone();
+        keys = other.keys.clone();
+        historySize = other.historySize;
+        tablebases = other.tablebases;
     }
 
     /**
      * @return Which team's turn it is
      */
     public TeamColor getTeamTurn() {
-        throw new RuntimeException("Not implemented");
+        return teamTurn;
     }
 
     /**
@@ -27,7 +99,7 @@ public class ChessGame {
      * @param team the team whose turn it is
      */
     public void setTeamTurn(TeamColor team) {
-        throw new RuntimeException("Not implemented");
+        teamTurn = team;
     }
 
     /**
@@ -35,7 +107,70 @@ public class ChessGame {
      */
     public enum TeamColor {
         WHITE,
-        BLACK
+        BLACK;
+
+        /**
+         * @return the other team
+         */
+        public TeamColor opponent()
+        {
+            return this == WHITE ? BLACK : WHITE;
+        }
+    }
+
+    /**
+     * @return the castling rights still available, as a combination of
+     * {@link #WhiteKingside}, {@link #WhiteQueenside}, {@link #BlackKingside} and
+     * {@link #BlackQueenside}
+     */
+    public int getCastlingRights()
+    {
+        return castlingRights;
+    }
+
+    /**
+     * @return the square index a pawn capturing en passant would move to, or
+     * {@link #NoSquare} if the last move was not a two-square pawn move
+     */
+    public int getEnPassantSquare()
+    {
+        return enPassantSquare;
+    }
+
+    /**
+     * @return the number of moves since the last capture or pawn move
+     */
+    public int getHalfmoveClock()
+    {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return the number of the current full move, starting at 1 and going up after each black move
+     */
+    public int getFullmoveNumber()
+    {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Gets the Zobrist key of the whole position: the pieces, whose turn it is, the
+     * castling rights and the en-passant file
+     *
+     * @return the 64-bit key
+     */
+    public long zobristKey()
+    {
+        long key = board.zobristKey() ^ Zobrist.Castling[castlingRights];
+        if(teamTurn == TeamColor.BLACK)
+        {
+            key ^= Zobrist.BlackToMove;
+        }
+        if(enPassantSquare != NoSquare)
+        {
+            key ^= Zobrist.EnPassantFile[enPassantSquare % 8];
+        }
+        return key;
     }
 
     /**
@@ -46,7 +181,82 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        throw new RuntimeException("Not implemented");
+        ChessPiece piece = board.getPiece(startPosition);
+        if(piece == null)
+        {
+            return null;
+        }
+
+        MoveList moves = new MoveList();
+        validMoves(startPosition.getIndex(), moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * Appends the valid moves of the piece on a square to a list
+     *
+     * @param square the square index of the piece
+     * @param moves  the list to append moves to, in {@link PackedMove} form
+     */
+    public void validMoves(int square, MoveList moves)
+    {
+        ChessPiece piece = board.getPiece(square);
+        if(piece == null)
+        {
+            return;
+        }
+        generateMoves(piece.getTeamColor(), 1L << square, MoveGenerator.AllMoves, moves);
+    }
+
+    /**
+     * Appends the valid moves of every piece on a team to a list
+     *
+     * @param team  the team to get valid moves for
+     * @param moves the list to append moves to, in {@link PackedMove} form
+     */
+    public void validMoves(TeamColor team, MoveList moves)
+    {
+        generateMoves(team, ~0L, MoveGenerator.AllMoves, moves);
+    }
+
+    /**
+     * Appends the valid moves of the team whose turn it is from some squares to a list
+     *
+     * @param fromMask the squares to generate moves from, as a bitboard
+     * @param moves    the list to append moves to, in {@link PackedMove} form
+     */
+    void validMovesFrom(long fromMask, MoveList moves)
+    {
+        generateMoves(teamTurn, fromMask, MoveGenerator.AllMoves, moves);
+    }
+
+    /**
+     * Appends the valid captures and promotions of the team whose turn it is to a list.
+     * Together with {@link #quietMoves} these are exactly the team's valid moves.
+     *
+     * @param moves the list to append moves to, in {@link PackedMove} form
+     */
+    public void noisyMoves(MoveList moves)
+    {
+        generateMoves(teamTurn, ~0L, MoveGenerator.Noisy, moves);
+    }
+
+    /**
+     * Appends the valid moves of the team whose turn it is that neither capture nor
+     * promote, castling included, to a list
+     *
+     * @param moves the list to append moves to, in {@link PackedMove} form
+     */
+    public void quietMoves(MoveList moves)
+    {
+        generateMoves(teamTurn, ~0L, MoveGenerator.Quiet, moves);
+    }
+
+    private void generateMoves(TeamColor team, long fromMask, int kinds, MoveList moves)
+    {
+        // only the team whose turn it is can capture en passant
+        int enPassant = team == teamTurn ? enPassantSquare : NoSquare;
+        MoveGenerator.generate(board, team, castlingRights, enPassant, fromMask, kinds, moves);
     }
 
     /**
@@ -56,7 +266,171 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        throw new RuntimeException("Not implemented");
+        ChessPiece piece = board.getPiece(move.getStartPosition());
+        if(piece == null)
+        {
+            throw new InvalidMoveException("No piece at " + move.getStartPosition());
+        }
+        if(piece.getTeamColor() != teamTurn)
+        {
+            throw new InvalidMoveException("It is not " + piece.getTeamColor() + "'s turn");
+        }
+
+        MoveList moves = new MoveList();
+        validMoves(move.getStartPosition().getIndex(), moves);
+        int packed = PackedMove.pack(move);
+        if(!moves.contains(packed))
+        {
+            throw new InvalidMoveException("Invalid move: " + move);
+        }
+        makeMove(packed);
+    }
+
+    /**
+     * Plays a move on the board in place, without checking that it is valid, and
+     * records what it changed so {@link #unmakeMove()} can take it back. The move
+     * must at least be one the piece on its start square could make.
+     *
+     * @param move the move, in {@link PackedMove} form
+     */
+    public void makeMove(int move)
+    {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece piece = board.getPiece(from);
+        TeamColor team = piece.getTeamColor();
+        boolean pawn = piece.getPieceType() == ChessPiece.PieceType.PAWN;
+
+        ChessPiece captured;
+        if(pawn && to == enPassantSquare)
+        {
+            captured = board.removePiece(to + (team == TeamColor.WHITE ? -8 : 8));
+        }
+        else
+        {
+            captured = board.getPiece(to);
+        }
+
+        pushUndo(Undo.pack(move, captured, castlingRights, enPassantSquare, halfmoveClock, teamTurn), zobristKey());
+
+        board.movePiece(from, to);
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        if(promotion != null)
+        {
+            board.addPiece(to, ChessPiece.of(team, promotion));
+        }
+        else if(piece.getPieceType() == ChessPiece.PieceType.KING && Math.abs(to - from) == 2)
+        {
+            moveCastlingRook(from, to, false);
+        }
+
+        castlingRights &= CastlingRightsKept[from] & CastlingRightsKept[to];
+        enPassantSquare = pawn && Math.abs(to - from) == 16 ? (from + to) / 2 : NoSquare;
+        halfmoveClock = pawn || captured != null ? 0 : halfmoveClock + 1;
+        if(team == TeamColor.BLACK)
+        {
+            fullmoveNumber++;
+        }
+        teamTurn = team.opponent();
+    }
+
+    /**
+     * Takes back the last move played with {@link #makeMove(int)}, restoring the board
+     * and all game state to exactly what it was before
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void unmakeMove()
+    {
+        if(historySize == 0)
+        {
+            throw new IllegalStateException("No move to unmake");
+        }
+        long record = history[--historySize];
+        int move = Undo.move(record);
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int previousEnPassant = Undo.enPassantSquare(record);
+
+        ChessPiece piece = board.removePiece(to);
+        TeamColor team = piece.getTeamColor();
+        if(PackedMove.promotion(move) != null)
+        {
+            piece = ChessPiece.of(team, ChessPiece.PieceType.PAWN);
+        }
+        board.addPiece(from, piece);
+
+        ChessPiece captured = Undo.captured(record);
+        if(piece.getPieceType() == ChessPiece.PieceType.PAWN && to == previousEnPassant)
+        {
+            board.addPiece(to + (team == TeamColor.WHITE ? -8 : 8), captured);
+        }
+        else if(captured != null)
+        {
+            board.addPiece(to, captured);
+        }
+        else if(piece.getPieceType() == ChessPiece.PieceType.KING && Math.abs(to - from) == 2)
+        {
+            moveCastlingRook(from, to, true);
+        }
+
+        if(team == TeamColor.BLACK)
+        {
+            fullmoveNumber--;
+        }
+        castlingRights = Undo.castlingRights(record);
+        enPassantSquare = previousEnPassant;
+        halfmoveClock = Undo.halfmoveClock(record);
+        teamTurn = Undo.teamTurn(record);
+    }
+
+    private void moveCastlingRook(int kingFrom, int kingTo, boolean undo)
+    {
+        boolean kingside = kingTo > kingFrom;
+        int rookHome = kingside ? kingFrom + 3 : kingFrom - 4;
+        int rookCastled = kingside ? kingFrom + 1 : kingFrom - 1;
+        if(undo)
+        {
+            board.movePiece(rookCastled, rookHome);
+        }
+        else
+        {
+            board.movePiece(rookHome, rookCastled);
+        }
+    }
+
+    private void pushUndo(long record, long key)
+    {
+        if(historySize == history.length)
+        {
+            history = Arrays.copyOf(history, history.length * 2);
+            keys = Arrays.copyOf(keys, keys.length * 2);
+        }
+        history[historySize] = record;
+        keys[historySize++] = key;
+    }
+
+    /**
+     * Determines whether the position has occurred before in the moves played with
+     * {@link #makeMove(int)}. Only positions since the last capture or pawn move are
+     * compared, since none from before one can come back.
+     *
+     * @return whether the same position, with the same team to move and the same
+     * castling and en passant rights, was reached earlier
+     */
+    public boolean isRepetition()
+    {
+        long key = zobristKey();
+        int earliest = Math.max(0, historySize - halfmoveClock);
+        // the same team is to move every other ply, and each must move twice to get back
+        for(int i = historySize - 4; i >= earliest; i -= 2)
+        {
+            if(keys[i] == key)
+            {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -66,7 +440,8 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        throw new RuntimeException("Not implemented");
+        int king = board.getKingSquare(teamColor);
+        return king != ChessBoard.NoKing && board.isSquareAttacked(king, teamColor.opponent());
     }
 
     /**
@@ -76,7 +451,7 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        throw new RuntimeException("Not implemented");
+        return isInCheck(teamColor) && !hasValidMove(teamColor);
     }
 
     /**
@@ -87,16 +462,85 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        throw new RuntimeException("Not implemented");
+        return !isInCheck(teamColor) && !hasValidMove(teamColor);
+    }
+
+    /**
+     * Sets the endgame tablebases this game looks its positions up in; copies of the
+     * game share them
+     *
+     * @param tablebases the tablebases, or null for none
+     */
+    public void setTablebases(Tablebases tablebases)
+    {
+        this.tablebases = tablebases;
+    }
+
+    /**
+     * @return the endgame tablebases this game looks its positions up in, or null
+     */
+    public Tablebases getTablebases()
+    {
+        return tablebases;
+    }
+
+    /**
+     * Looks the position up in the game's endgame tablebases, so a game can be ended as
+     * soon as its result is certain rather than played out to mate
+     *
+     * @return the result of perfect play for the team to move, or null if the game has no
+     * tablebases or none covers the position
+     */
+    public Tablebases.Result getTablebaseResult()
+    {
+        return tablebases == null ? null : tablebases.result(this);
+    }
+
+    private boolean hasValidMove(TeamColor teamColor)
+    {
+        return MoveGenerator.hasAnyMove(board, teamColor, teamColor == teamTurn ? enPassantSquare : NoSquare);
     }
 
     /**
      * Sets this game's chessboard with a given board
+     * <p>
+     * Kings and rooks still on their starting squares are assumed not to have moved,
+     * so they keep their castling rights.
      *
      * @param board the new board to use
      */
     public void setBoard(ChessBoard board) {
-        throw new RuntimeException("Not implemented");
+        setPosition(board, teamTurn, AllCastlingRights, NoSquare, 0, 1);
+    }
+
+    /**
+     * Sets the whole position, as read from FEN by {@link Fen}, and forgets the moves
+     * played to reach the old one
+     *
+     * @param castlingRights the castling rights claimed; any whose king or rook is not on
+     *                       its starting square are dropped
+     */
+    final void setPosition(ChessBoard board, TeamColor turn, int castlingRights, int enPassantSquare, int halfmoveClock,
+                           int fullmoveNumber)
+    {
+        this.board = board;
+        teamTurn = turn;
+        this.castlingRights = 0;
+        for(int i = 0; i < CastlingRookHomes.length; i++)
+        {
+            TeamColor team = i < 2 ? TeamColor.WHITE : TeamColor.BLACK;
+            int kingHome = team == TeamColor.WHITE ? WhiteKingHome : BlackKingHome;
+            if((castlingRights & 1 << i) != 0
+                    && board.getPiece(kingHome) == ChessPiece.of(team, ChessPiece.PieceType.KING)
+                    && board.getPiece(CastlingRookHomes[i]) == ChessPiece.of(team, ChessPiece.PieceType.ROOK))
+            {
+                this.castlingRights |= 1 << i;
+            }
+        }
+        this.enPassantSquare = enPassantSquare;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        historySize = 0;
     }
 
     /**
@@ -105,6 +549,77 @@ public class ChessGame {
      * @return the chessboard
      */
     public ChessBoard getBoard() {
-        throw new RuntimeException("Not implemented");
+        return board;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ChessGame that = (ChessGame) o;
+        return teamTurn == that.teamTurn
+                && castlingRights == that.castlingRights
+                && enPassantSquare == that.enPassantSquare
+                && board.equals(that.board);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(zobristKey());
+    }
+
+    /**
+     * Packs everything {@link #unmakeMove()} needs to restore into a long: the move in
+     * bits 0-15, the captured piece index plus one in bits 16-19, the castling rights in
+     * bits 20-23, the en-passant square plus one in bits 24-30, whose turn it was in bit
+     * 31 and the halfmove clock from bit 32 up
+     */
+    private static final class Undo
+    {
+        static long pack(int move, ChessPiece captured, int castlingRights, int enPassantSquare,
+                         int halfmoveClock, TeamColor teamTurn)
+        {
+            return move
+                    | (long) (captured == null ? 0 : captured.getIndex() + 1) << 16
+                    | (long) castlingRights << 20
+                    | (long) (enPassantSquare + 1) << 24
+                    | (long) teamTurn.ordinal() << 31
+                    | (long) halfmoveClock << 32;
+        }
+
+        static int move(long record)
+        {
+            return (int) (record & 0xFFFF);
+        }
+
+        static ChessPiece captured(long record)
+        {
+            int code = (int) (record >>> 16) & 0xF;
+            return code == 0 ? null : ChessPiece.of(code - 1);
+        }
+
+        static int castlingRights(long record)
+        {
+            return (int) (record >>> 20) & 0xF;
+        }
+
+        static int enPassantSquare(long record)
+        {
+            return ((int) (record >>> 24) & 0x7F) - 1;
+        }
+
+        static TeamColor teamTurn(long record)
+        {
+            return ((record >>> 31) & 1) == 0 ? TeamColor.WHITE : TeamColor.BLACK;
+        }
+
+        static int halfmoveClock(long record)
+        {
+            return (int) (record >>> 32);
+        }
     }
 }
@@ -54,13 +54,14 @@ public class ChessMove {
 
     @Override
     public int hashCode() {
-        return Objects.hash(startPosition.hashCode(),
-                            endPosition.hashCode(),
-                            promotionPiece == null ? 0 : promotionPiece.hashCode());
+        return PackedMove.pack(this);
     }
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
@@ -72,13 +73,38 @@ public class ChessMove {
 
     public enum Direction
     {
-        WEST,
-        EAST,
-        NORTH,
-        SOUTH,
-        NORTHWEST,
-        NORTHEAST,
-        SOUTHWEST,
-        SOUTHEAST
+        WEST(0, 1),
+        EAST(0, -1),
+        NORTH(1, 0),
+        SOUTH(-1, 0),
+        NORTHWEST(1, -1),
+        NORTHEAST(1, 1),
+        SOUTHWEST(-1, -1),
+        SOUTHEAST(-1, 1);
+
+        private final int rowOffset;
+        private final int columnOffset;
+
+        Direction(int rowOffset, int columnOffset)
+        {
+            this.rowOffset = rowOffset;
+            this.columnOffset = columnOffset;
+        }
+
+        /**
+         * @return how many rows a single step in this direction moves
+         */
+        public int getRowOffset()
+        {
+            return rowOffset;
+        }
+
+        /**
+         * @return how many columns a single step in this direction moves
+         */
+        public int getColumnOffset()
+        {
+            return columnOffset;
+        }
     }
 }
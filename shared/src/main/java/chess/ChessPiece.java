@@ -1,8 +1,6 @@
 package chess;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Objects;
 
 /**
  * Represents a single chess piece
@@ -14,29 +12,79 @@ public class ChessPiece {
 
     private final ChessGame.TeamColor pieceColor;
     private final PieceType pieceType;
+    private final int index;
+    private final String shortCode;
+
+    // short codes by PieceType ordinal; kings are "G" so they don't clash with knights
+    private static final String[] WhiteShortCodes = {"G", "Q", "B", "K", "R", "P"};
+    private static final String[] BlackShortCodes = {"g", "q", "b", "k", "r", "p"};
+
+    private static final int PieceTypeCount = PieceType.values().length;
+
+    // one shared instance per color and type, indexed like getIndex()
+    private static final ChessPiece[] Pieces = new ChessPiece[ChessGame.TeamColor.values().length * PieceTypeCount];
+
+    static
+    {
+        for(ChessGame.TeamColor color : ChessGame.TeamColor.values())
+        {
+            for(PieceType type : PieceType.values())
+            {
+                var piece = new ChessPiece(color, type);
+                Pieces[piece.index] = piece;
+            }
+        }
+    }
 
     public ChessPiece(ChessGame.TeamColor pieceColor, PieceType type) {
         this.pieceColor = pieceColor;
         this.pieceType = type;
+        this.index = indexOf(pieceColor, type);
+        this.shortCode = pieceColor == ChessGame.TeamColor.WHITE
+                ? WhiteShortCodes[type.ordinal()]
+                : BlackShortCodes[type.ordinal()];
     }
 
-    public String shortCode()
+    /**
+     * Gets the shared, immutable piece of a color and type without allocating
+     *
+     * @param pieceColor which team the piece belongs to
+     * @param type       which type of piece it is
+     * @return the canonical piece
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, PieceType type)
     {
-        String code;
-        if(getPieceType() == PieceType.KING)
-        {
-           code = "G";
-        }
-        else
-        {
-            code = getPieceType().toString().toUpperCase().substring(0,1);
-        }
+        return Pieces[indexOf(pieceColor, type)];
+    }
 
-        if(getTeamColor() == ChessGame.TeamColor.BLACK) {
-            code = code.toLowerCase();
-        }
+    /**
+     * Gets the shared piece for an index
+     *
+     * @param index the piece index, as returned by {@link #getIndex()}
+     * @return the canonical piece
+     */
+    public static ChessPiece of(int index)
+    {
+        return Pieces[index];
+    }
 
-        return code;
+    /**
+     * @return a number from 0 to 11 unique to this piece's color and type,
+     * white pieces first and then by {@link PieceType} ordinal
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    static int indexOf(ChessGame.TeamColor pieceColor, PieceType type)
+    {
+        return pieceColor.ordinal() * PieceTypeCount + type.ordinal();
+    }
+
+    public String shortCode()
+    {
+        return shortCode;
     }
 
     /**
@@ -74,113 +122,49 @@ public class ChessPiece {
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition)
     {
+        MoveList moves = new MoveList(MostMovesForOnePiece);
+        pieceMoves(board, myPosition.getIndex(), moves);
+        return moves.toChessMoves();
+    }
+
+    // a queen in the middle of an open board has 27 moves
+    private static final int MostMovesForOnePiece = 32;
+
+    /**
+     * Calculates the same moves as {@link #pieceMoves(ChessBoard, ChessPosition)}, but
+     * appends them to a caller-owned list in {@link PackedMove} form instead of
+     * allocating a collection
+     *
+     * @param board  the board this piece is on
+     * @param square the square index this piece is on
+     * @param moves  the list to append moves to
+     */
+    public void pieceMoves(ChessBoard board, int square, MoveList moves)
+    {
+        long occupied = board.getOccupied();
+        long allies = board.getPieces(getTeamColor());
         switch (getPieceType())
         {
-            case PieceType.BISHOP -> {
-                return moves(board, myPosition,
-                        new ChessMove.Direction[] {
-                                ChessMove.Direction.NORTHWEST,
-                                ChessMove.Direction.NORTHEAST,
-                                ChessMove.Direction.SOUTHWEST,
-                                ChessMove.Direction.SOUTHEAST
-                });
-            }
-            case PieceType.ROOK -> {
-                return moves(board, myPosition,
-                        new ChessMove.Direction[] {
-                                ChessMove.Direction.NORTH,
-                                ChessMove.Direction.SOUTH,
-                                ChessMove.Direction.EAST,
-                                ChessMove.Direction.WEST
-                        });
-            }
-            case PieceType.QUEEN -> {
-                return moves(board, myPosition,
-                        new ChessMove.Direction[] {
-                                ChessMove.Direction.NORTH,
-                                ChessMove.Direction.SOUTH,
-                                ChessMove.Direction.EAST,
-                                ChessMove.Direction.WEST,
-                                ChessMove.Direction.NORTHWEST,
-                                ChessMove.Direction.NORTHEAST,
-                                ChessMove.Direction.SOUTHWEST,
-                                ChessMove.Direction.SOUTHEAST
-                        });
-            }
-            case PieceType.KING -> {
-                return moves(board, myPosition,
-                        new ChessMove.Direction[] {
-                                ChessMove.Direction.NORTH,
-                                ChessMove.Direction.SOUTH,
-                                ChessMove.Direction.EAST,
-                                ChessMove.Direction.WEST,
-                                ChessMove.Direction.NORTHWEST,
-                                ChessMove.Direction.NORTHEAST,
-                                ChessMove.Direction.SOUTHWEST,
-                                ChessMove.Direction.SOUTHEAST
-                        },
-                        1);
-            }
-            case PieceType.KNIGHT -> {
-                return new Knight(board, myPosition).moves();
-            }
-            case PieceType.PAWN -> {
-                return new Pawn(board, myPosition).moves();
-            }
+            case PieceType.BISHOP -> moves.addAll(square, SlidingAttacks.bishopAttacks(square, occupied) & ~allies);
+            case PieceType.ROOK -> moves.addAll(square, SlidingAttacks.rookAttacks(square, occupied) & ~allies);
+            case PieceType.QUEEN -> moves.addAll(square, SlidingAttacks.queenAttacks(square, occupied) & ~allies);
+            case PieceType.KING -> kingMoves(board, square, moves);
+            case PieceType.KNIGHT -> Knight.moves(board, square, getTeamColor(), moves);
+            case PieceType.PAWN -> Pawn.moves(board, square, getTeamColor(), moves);
             default -> throw new UnsupportedOperationException();
         }
     }
 
-    private ArrayList<ChessMove> moves(ChessBoard board,
-                                       ChessPosition currentPosition,
-                                       ChessMove.Direction[] directions)
+    private void kingMoves(ChessBoard board, int square, MoveList moves)
     {
-        return moves(board, currentPosition, directions, null);
-    }
-
-    private ArrayList<ChessMove> moves(ChessBoard board,
-                                       ChessPosition currentPosition,
-                                       ChessMove.Direction[] directions,
-                                       Integer maximumSteps)
-    {
-        ArrayList<ChessMove> moves = new ArrayList<>();
-
-        for(ChessMove.Direction direction : directions)
+        for(ChessPosition possiblePosition : MoveTables.KingSteps[square])
         {
-            int stepsTaken = 0;
-            ChessPosition possiblePosition = currentPosition;
-
-            while(possiblePosition != null)
+            ChessPiece pieceAtPosition = board.getPiece(possiblePosition);
+            if(pieceAtPosition == null || isEnemy(pieceAtPosition))
             {
-                possiblePosition = possiblePosition.getNeighbor(direction);
-                if(possiblePosition != null)  //not at an edge
-                {
-                    ChessPiece pieceAtPosition = board.getPiece(possiblePosition);
-
-                    if(pieceAtPosition == null) //no piece in this spot
-                    {
-                        moves.add(new ChessMove(currentPosition, possiblePosition, null));
-                        stepsTaken++;
-                        if(maximumSteps != null && stepsTaken == maximumSteps)
-                        {
-                            possiblePosition = null;
-                        }
-                    }
-                    else if(isEnemy(pieceAtPosition))  //piece in spot is enemy
-                    {
-                        moves.add(new ChessMove(currentPosition, possiblePosition, null));
-                        stepsTaken++;
-                        possiblePosition = null;
-                    }
-                    else //piece in spot is ally
-                    {
-                        possiblePosition = null;
-                    }
-                }
+                moves.add(PackedMove.encode(square, possiblePosition.getIndex(), null));
             }
         }
-
-        return moves;
     }
 
     protected boolean isEnemy(ChessPiece otherPiece)
@@ -190,16 +174,19 @@ public class ChessPiece {
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
         ChessPiece that = (ChessPiece) o;
-        return pieceColor == that.pieceColor && pieceType == that.pieceType;
+        return index == that.index;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(pieceColor, pieceType);
+        return index;
     }
 
     @Override
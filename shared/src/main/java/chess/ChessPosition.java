@@ -1,7 +1,5 @@
 package chess;
 
-import java.util.Objects;
-
 /**
  * Represents a single square position on a chess board
  * <p>
@@ -12,18 +10,83 @@ public class ChessPosition {
 
     private final int row;
     private final int col;
+    private final int index;
 
     public static final int TopRow = 8;
     public static final int BottomRow = 1;
     public static final int FirstColumn = 1;
     public static final int LastColumn = 8;
 
+    // one shared instance per square, and each square's neighbor in every direction (null off the board)
+    private static final ChessPosition[] Positions = new ChessPosition[64];
+    private static final ChessPosition[][] Neighbors = new ChessPosition[64][ChessMove.Direction.values().length];
+
+    static
+    {
+        for(int r = BottomRow; r <= TopRow; r++)
+        {
+            for(int c = FirstColumn; c <= LastColumn; c++)
+            {
+                var position = new ChessPosition(r, c);
+                Positions[position.index] = position;
+            }
+        }
+        for(ChessPosition position : Positions)
+        {
+            for(ChessMove.Direction direction : ChessMove.Direction.values())
+            {
+                int r = position.row + direction.getRowOffset();
+                int c = position.col + direction.getColumnOffset();
+                if(isOnBoard(r, c))
+                {
+                    Neighbors[position.index][direction.ordinal()] = of(r, c);
+                }
+            }
+        }
+    }
+
     public ChessPosition(int row, int col) {
         if(row < BottomRow || row > TopRow) throw new IllegalArgumentException("invalid row");
         if(col < FirstColumn || col > LastColumn) throw new IllegalArgumentException("invalid column");
 
         this.row = row;
         this.col = col;
+        this.index = (row - BottomRow) * 8 + (col - FirstColumn);
+    }
+
+    /**
+     * Gets the shared position for a square without allocating
+     *
+     * @param row the row, 1 being the bottom row
+     * @param col the column, 1 being the left column
+     * @return the canonical position for that square
+     */
+    public static ChessPosition of(int row, int col)
+    {
+        if(!isOnBoard(row, col))
+        {
+            throw new IllegalArgumentException("invalid position");
+        }
+        return Positions[(row - BottomRow) * 8 + (col - FirstColumn)];
+    }
+
+    /**
+     * Gets the shared position for a square index
+     *
+     * @param index the square index, as returned by {@link #getIndex()}
+     * @return the canonical position for that square
+     */
+    public static ChessPosition of(int index)
+    {
+        return Positions[index];
+    }
+
+    /**
+     * @return true if the given row and column are on the board
+     */
+    public static boolean isOnBoard(int row, int col)
+    {
+        return row >= BottomRow && row <= TopRow && col >= FirstColumn && col <= LastColumn;
     }
 
     /**
@@ -42,6 +105,14 @@ public class ChessPosition {
         return col;
     }
 
+    /**
+     * @return the square index of this position, counting from 0 at (1,1)
+     * along each row up to 63 at (8,8)
+     */
+    public int getIndex() {
+        return index;
+    }
+
     public ChessPosition getNeighbor(ChessMove.Direction... directions)
     {
         if(directions.length == 0)
@@ -67,62 +138,14 @@ public class ChessPosition {
 
     public ChessPosition getNeighbor(ChessMove.Direction direction)
     {
-        switch (direction)
-        {
-            case ChessMove.Direction.NORTH -> {
-                if(row == TopRow) {
-                    return null;
-                }
-                return new ChessPosition(row + 1, col);
-            }
-            case ChessMove.Direction.SOUTH -> {
-                if(row == BottomRow) {
-                    return null;
-                }
-                return new ChessPosition(row - 1, col);
-            }
-            case ChessMove.Direction.EAST -> {
-                if(col == FirstColumn) {
-                    return null;
-                }
-                return new ChessPosition(row, col - 1);
-            }
-            case ChessMove.Direction.WEST -> {
-                if(col == LastColumn) {
-                    return null;
-                }
-                return new ChessPosition(row, col + 1);
-            }
-            case ChessMove.Direction.NORTHWEST -> {
-                if(row == TopRow || col == FirstColumn) {
-                    return null;
-                }
-                return new ChessPosition(row + 1, col - 1);
-            }
-            case ChessMove.Direction.NORTHEAST -> {
-                if(row == TopRow || col == LastColumn){
-                    return null;
-                }
-                return new ChessPosition(row + 1, col + 1);
-            }
-            case ChessMove.Direction.SOUTHWEST -> {
-                if(row == BottomRow || col == 1){
-                    return null;
-                }
-                return new ChessPosition(row - 1, col - 1);
-            }
-            case ChessMove.Direction.SOUTHEAST -> {
-                if(row == BottomRow || col == LastColumn){
-                    return null;
-                }
-                return new ChessPosition(row - 1, col + 1);
-            }
-            default -> throw new RuntimeException("not implemented");
-        }
+        return Neighbors[index][direction.ordinal()];
     }
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
@@ -132,7 +155,7 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        return index;
     }
 
     @Override
@@ -0,0 +1,333 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation, such as
+ * {@code rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1}: the pieces
+ * from row 8 down, the team to move, the castling rights, the en passant square
+ * and the halfmove clock and fullmove number.
+ * <p>
+ * Reading walks the text once, character by character, and writing appends to a
+ * caller's {@link StringBuilder}, so neither builds any strings along the way. The
+ * two move counters may be left off, as they are in EPD records, and then read as
+ * {@code 0 1}.
+ */
+public final class Fen
+{
+    /**
+     * The position every game starts from
+     */
+    public static final String StartingPosition = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // FEN letters by piece index, and piece index plus one by letter
+    private static final char[] Letters = new char[ChessGame.TeamColor.values().length * ChessPiece.PieceType.values().length];
+    private static final byte[] PieceCodes = new byte['z' + 1];
+
+    static
+    {
+        for(ChessGame.TeamColor team : ChessGame.TeamColor.values())
+        {
+            for(ChessPiece.PieceType type : ChessPiece.PieceType.values())
+            {
+                char letter = switch(type)
+                {
+                    case KING -> 'k';
+                    case QUEEN -> 'q';
+                    case BISHOP -> 'b';
+                    case KNIGHT -> 'n';
+                    case ROOK -> 'r';
+                    case PAWN -> 'p';
+                };
+                if(team == ChessGame.TeamColor.WHITE)
+                {
+                    letter = Character.toUpperCase(letter);
+                }
+                int index = ChessPiece.of(team, type).getIndex();
+                Letters[index] = letter;
+                PieceCodes[letter] = (byte) (index + 1);
+            }
+        }
+    }
+
+    // castling right letters in the order FEN writes them, with their bits
+    private static final String CastlingLetters = "KQkq";
+    private static final int[] CastlingBits = {
+            ChessGame.WhiteKingside,
+            ChessGame.WhiteQueenside,
+            ChessGame.BlackKingside,
+            ChessGame.BlackQueenside
+    };
+
+    private Fen()
+    {
+    }
+
+    /**
+     * Reads a position into a new game
+     *
+     * @param fen the position
+     * @return a game at the position, with no moves to take back
+     * @throws IllegalArgumentException if the text is not a position in FEN
+     */
+    public static ChessGame parse(CharSequence fen)
+    {
+        ChessGame game = new ChessGame();
+        read(fen, game);
+        return game;
+    }
+
+    /**
+     * Sets a game to a position, replacing its board and clearing its moves to take back
+     *
+     * @param fen  the position
+     * @param game the game to set
+     * @throws IllegalArgumentException if the text is not a position in FEN; the game is
+     *                                  left as it was
+     */
+    public static void read(CharSequence fen, ChessGame game)
+    {
+        ChessBoard board = new ChessBoard();
+        int length = fen.length();
+        int i = 0;
+
+        int row = ChessPosition.TopRow;
+        int column = ChessPosition.FirstColumn;
+        for(; i < length && fen.charAt(i) != ' '; i++)
+        {
+            char c = fen.charAt(i);
+            if(c == '/')
+            {
+                if(column != ChessPosition.LastColumn + 1 || row == ChessPosition.BottomRow)
+                {
+                    throw invalid(fen, i, "a row needs 8 squares");
+                }
+                row--;
+                column = ChessPosition.FirstColumn;
+            }
+            else if(c >= '1' && c <= '8')
+            {
+                column += c - '0';
+            }
+            else if(c < PieceCodes.length && PieceCodes[c] != 0 && column <= ChessPosition.LastColumn)
+            {
+                board.addPiece((row - ChessPosition.BottomRow) * 8 + column - ChessPosition.FirstColumn,
+                        ChessPiece.of(PieceCodes[c] - 1));
+                column++;
+            }
+            else
+            {
+                throw invalid(fen, i, "not a piece or a number of empty squares");
+            }
+            if(column > ChessPosition.LastColumn + 1)
+            {
+                throw invalid(fen, i, "a row needs 8 squares");
+            }
+        }
+        if(row != ChessPosition.BottomRow || column != ChessPosition.LastColumn + 1)
+        {
+            throw invalid(fen, i, "the board needs 8 rows of 8 squares");
+        }
+
+        i = skipSpace(fen, i);
+        ChessGame.TeamColor turn;
+        switch(i < length ? fen.charAt(i) : ' ')
+        {
+            case 'w' -> turn = ChessGame.TeamColor.WHITE;
+            case 'b' -> turn = ChessGame.TeamColor.BLACK;
+            default -> throw invalid(fen, i, "the team to move must be w or b");
+        }
+        i = skipSpace(fen, i + 1);
+
+        int castlingRights = 0;
+        if(i < length && fen.charAt(i) == '-')
+        {
+            i++;
+        }
+        else
+        {
+            for(; i < length && fen.charAt(i) != ' '; i++)
+            {
+                int right = CastlingLetters.indexOf(fen.charAt(i));
+                if(right < 0)
+                {
+                    throw invalid(fen, i, "castling rights must be some of KQkq, or -");
+                }
+                castlingRights |= CastlingBits[right];
+            }
+            if(castlingRights == 0)
+            {
+                throw invalid(fen, i, "castling rights must be some of KQkq, or -");
+            }
+        }
+        i = skipSpace(fen, i);
+
+        int enPassantSquare = ChessGame.NoSquare;
+        if(i < length && fen.charAt(i) == '-')
+        {
+            i++;
+        }
+        else
+        {
+            int expectedRow = turn == ChessGame.TeamColor.WHITE ? 6 : 3;
+            enPassantSquare = i + 1 < length ? Uci.square(fen.charAt(i), fen.charAt(i + 1)) : ChessGame.NoSquare;
+            if(enPassantSquare == ChessGame.NoSquare || enPassantSquare / 8 + 1 != expectedRow)
+            {
+                throw invalid(fen, i, "the en passant square must be on row " + expectedRow + ", or -");
+            }
+            i += 2;
+        }
+
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+        if(i < length)
+        {
+            i = skipSpace(fen, i);
+        }
+        if(i < length)
+        {
+            int start = i;
+            for(halfmoveClock = 0; i < length && isDigit(fen.charAt(i)) && i - start < 6; i++)
+            {
+                halfmoveClock = halfmoveClock * 10 + fen.charAt(i) - '0';
+            }
+            if(i == start)
+            {
+                throw invalid(fen, i, "the halfmove clock must be a number");
+            }
+            i = skipSpace(fen, i);
+            start = i;
+            for(fullmoveNumber = 0; i < length && isDigit(fen.charAt(i)) && i - start < 6; i++)
+            {
+                fullmoveNumber = fullmoveNumber * 10 + fen.charAt(i) - '0';
+            }
+            if(i == start || fullmoveNumber == 0)
+            {
+                throw invalid(fen, i, "the fullmove number must be a number from 1 up");
+            }
+            while(i < length && fen.charAt(i) == ' ')
+            {
+                i++;
+            }
+        }
+        if(i != length)
+        {
+            throw invalid(fen, i, "unexpected text after the position");
+        }
+
+        game.setPosition(board, turn, castlingRights, enPassantSquare, halfmoveClock, fullmoveNumber);
+    }
+
+    /**
+     * Writes a game's position
+     *
+     * @param game the game
+     * @return the position in FEN
+     */
+    public static String write(ChessGame game)
+    {
+        StringBuilder fen = new StringBuilder(90);
+        write(game, fen);
+        return fen.toString();
+    }
+
+    /**
+     * Writes a game's position onto the end of a builder
+     *
+     * @param game the game
+     * @param fen  where to write the position
+     */
+    public static void write(ChessGame game, StringBuilder fen)
+    {
+        writeBoard(game.getBoard(), fen);
+        fen.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+
+        int castlingRights = game.getCastlingRights();
+        if(castlingRights == 0)
+        {
+            fen.append('-');
+        }
+        for(int right = 0; right < CastlingBits.length; right++)
+        {
+            if((castlingRights & CastlingBits[right]) != 0)
+            {
+                fen.append(CastlingLetters.charAt(right));
+            }
+        }
+
+        int enPassantSquare = game.getEnPassantSquare();
+        if(enPassantSquare == ChessGame.NoSquare)
+        {
+            fen.append(" - ");
+        }
+        else
+        {
+            fen.append(' ');
+            Uci.appendSquare(enPassantSquare, fen);
+            fen.append(' ');
+        }
+        fen.append(game.getHalfmoveClock()).append(' ').append(game.getFullmoveNumber());
+    }
+
+    /**
+     * Writes the pieces on a board, the first field of a FEN record, onto the end of a builder
+     *
+     * @param board the board
+     * @param fen   where to write the pieces
+     */
+    public static void writeBoard(ChessBoard board, StringBuilder fen)
+    {
+        for(int row = ChessPosition.TopRow - 1; row >= 0; row--)
+        {
+            int empty = 0;
+            for(int square = row * 8; square < row * 8 + 8; square++)
+            {
+                ChessPiece piece = board.getPiece(square);
+                if(piece == null)
+                {
+                    empty++;
+                    continue;
+                }
+                if(empty > 0)
+                {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                fen.append(Letters[piece.getIndex()]);
+            }
+            if(empty > 0)
+            {
+                fen.append((char) ('0' + empty));
+            }
+            if(row > 0)
+            {
+                fen.append('/');
+            }
+        }
+    }
+
+    /**
+     * Skips the spaces between two fields
+     */
+    private static int skipSpace(CharSequence fen, int i)
+    {
+        if(i >= fen.length() || fen.charAt(i) != ' ')
+        {
+            throw invalid(fen, i, "expected a space between fields");
+        }
+        do
+        {
+            i++;
+        }
+        while(i < fen.length() && fen.charAt(i) == ' ');
+        return i;
+    }
+
+    private static boolean isDigit(char c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+    private static IllegalArgumentException invalid(CharSequence fen, int at, String problem)
+    {
+        return new IllegalArgumentException("not a FEN position (" + problem + " at character " + at + "): " + fen);
+    }
+}
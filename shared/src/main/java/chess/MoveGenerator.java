@@ -0,0 +1,356 @@
+package chess;
+
+/**
+ * Generates only legal moves, without playing them to see whether they leave the
+ * king in check.
+ * <p>
+ * The pieces checking the king, the pieces pinned to it and the squares that
+ * would block or capture a single checker are worked out once per call. Each
+ * piece's targets are then masked down to legal ones: in double check only
+ * the king may move, a pinned piece stays on the line through its king and
+ * pinner, and the king never steps onto an attacked square. En passant is the
+ * one move that can uncover a check along a row by removing two pieces from
+ * it, so it is checked by looking at the position after the capture.
+ * <p>
+ * Moves come in two kinds, which can be generated separately so a search can
+ * try the captures before paying for the quiet moves: {@link #Noisy} moves
+ * capture or promote (en passant and promotions without a capture included),
+ * and {@link #Quiet} moves are all the rest, castling included.
+ */
+final class MoveGenerator
+{
+    /**
+     * Kinds of moves to generate, combined as bits
+     */
+    static final int Noisy = 1;
+    static final int Quiet = 2;
+    static final int AllMoves = Noisy | Quiet;
+
+    private static final ChessPiece.PieceType[] PromotionTypes = {
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT
+    };
+
+    private MoveGenerator()
+    {
+    }
+
+    /**
+     * Appends the legal moves of one team's pieces to a list
+     *
+     * @param board           the board to generate moves on
+     * @param us              the team to generate moves for
+     * @param castlingRights  the castling rights still available
+     * @param enPassantSquare the square a pawn of {@code us} may capture en passant on,
+     *                        or {@link ChessGame#NoSquare}
+     * @param fromMask        a bitboard of the squares whose pieces to generate moves for
+     * @param kinds           the kinds of moves to generate: {@link #Noisy}, {@link #Quiet} or both
+     * @param moves           the list to append moves to
+     */
+    static void generate(ChessBoard board, ChessGame.TeamColor us, int castlingRights, int enPassantSquare,
+                         long fromMask, int kinds, MoveList moves)
+    {
+        ChessGame.TeamColor them = us.opponent();
+        long occupied = board.getOccupied();
+        long own = board.getPieces(us);
+        long targetMask = ((kinds & Noisy) != 0 ? board.getPieces(them) : 0)
+                | ((kinds & Quiet) != 0 ? ~occupied : 0);
+
+        // a board without a king (as in piece-movement puzzles) has no check to worry about
+        int king = board.getKingSquare(us);
+        long kingBit = king < 0 ? 0 : 1L << king;
+        long checkers = king < 0 ? 0 : board.getAttackers(king, occupied, them);
+        long pinned = king < 0 ? 0 : pinnedPieces(board, king, us);
+
+        long checkMask = checkMask(king, checkers);
+
+        if(checkMask != 0)
+        {
+            long pieces = own & ~board.getPieces(us, ChessPiece.PieceType.KING) & fromMask;
+            while(pieces != 0)
+            {
+                int from = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+
+                long pinMask = (pinned & (1L << from)) != 0 ? MoveTables.Line[king][from] : ~0L;
+                long allowed = checkMask & pinMask & targetMask;
+
+                ChessPiece.PieceType type = board.getPiece(from).getPieceType();
+                switch(type)
+                {
+                    case PAWN -> pawnMoves(from, pawnTargets(board, us, from, checkMask & pinMask, kinds), moves);
+                    case KNIGHT -> moves.addAll(from, MoveTables.KnightAttacks[from] & allowed);
+                    case BISHOP -> moves.addAll(from, SlidingAttacks.bishopAttacks(from, occupied) & allowed);
+                    case ROOK -> moves.addAll(from, SlidingAttacks.rookAttacks(from, occupied) & allowed);
+                    case QUEEN -> moves.addAll(from, SlidingAttacks.queenAttacks(from, occupied) & allowed);
+                    default -> throw new IllegalStateException("unexpected " + type);
+                }
+            }
+
+            if(enPassantSquare != ChessGame.NoSquare && (kinds & Noisy) != 0)
+            {
+                long capturers = enPassantCapturers(board, us, king, enPassantSquare, checkMask) & fromMask;
+                while(capturers != 0)
+                {
+                    moves.add(PackedMove.encode(Long.numberOfTrailingZeros(capturers), enPassantSquare, null));
+                    capturers &= capturers - 1;
+                }
+            }
+        }
+
+        if(king >= 0 && (kingBit & fromMask) != 0)
+        {
+            long targets = MoveTables.KingAttacks[king] & targetMask;
+            long withoutKing = occupied ^ kingBit;
+            while(targets != 0)
+            {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                if(board.getAttackers(to, withoutKing, them) == 0)
+                {
+                    moves.add(PackedMove.encode(king, to, null));
+                }
+            }
+
+            if(checkers == 0 && (kinds & Quiet) != 0)
+            {
+                castlingMoves(board, us, king, castlingRights, moves);
+            }
+        }
+    }
+
+    /**
+     * Determines whether one team has any legal move, stopping at the first one found
+     * rather than generating them all, as telling checkmate and stalemate apart needs
+     *
+     * @param board           the board to look for moves on
+     * @param us              the team to look for moves for
+     * @param enPassantSquare the square a pawn of {@code us} may capture en passant on,
+     *                        or {@link ChessGame#NoSquare}
+     * @return whether {@link #generate} would find at least one move
+     */
+    static boolean hasAnyMove(ChessBoard board, ChessGame.TeamColor us, int enPassantSquare)
+    {
+        ChessGame.TeamColor them = us.opponent();
+        long occupied = board.getOccupied();
+        long own = board.getPieces(us);
+
+        // castling is left out: it needs the square beside the king to be empty and safe,
+        // so a king that could castle could also step there
+        int king = board.getKingSquare(us);
+        long checkMask = ~0L;
+        long pinned = 0;
+        if(king >= 0)
+        {
+            long targets = MoveTables.KingAttacks[king] & ~own;
+            long withoutKing = occupied ^ (1L << king);
+            while(targets != 0)
+            {
+                if(board.getAttackers(Long.numberOfTrailingZeros(targets), withoutKing, them) == 0)
+                {
+                    return true;
+                }
+                targets &= targets - 1;
+            }
+            checkMask = checkMask(king, board.getAttackers(king, occupied, them));
+            if(checkMask == 0)
+            {
+                return false;
+            }
+            pinned = pinnedPieces(board, king, us);
+        }
+
+        long pieces = own & ~board.getPieces(us, ChessPiece.PieceType.KING);
+        while(pieces != 0)
+        {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+
+            long pinMask = (pinned & (1L << from)) != 0 ? MoveTables.Line[king][from] : ~0L;
+            long allowed = checkMask & pinMask & ~own;
+            long targets = switch(board.getPiece(from).getPieceType())
+            {
+                case PAWN -> pawnTargets(board, us, from, checkMask & pinMask, AllMoves);
+                case KNIGHT -> MoveTables.KnightAttacks[from] & allowed;
+                case BISHOP -> SlidingAttacks.bishopAttacks(from, occupied) & allowed;
+                case ROOK -> SlidingAttacks.rookAttacks(from, occupied) & allowed;
+                case QUEEN -> SlidingAttacks.queenAttacks(from, occupied) & allowed;
+                case KING -> throw new IllegalStateException("unexpected KING");
+            };
+            if(targets != 0)
+            {
+                return true;
+            }
+        }
+
+        return enPassantSquare != ChessGame.NoSquare
+                && enPassantCapturers(board, us, king, enPassantSquare, checkMask) != 0;
+    }
+
+    /**
+     * @return the squares a piece other than the king may move to given the pieces
+     * checking it: anywhere when there are none, onto the checker or between it and the
+     * king when there is one, and nowhere in double check
+     */
+    private static long checkMask(int king, long checkers)
+    {
+        if(checkers == 0)
+        {
+            return ~0L;
+        }
+        if((checkers & (checkers - 1)) == 0)
+        {
+            return checkers | MoveTables.Between[king][Long.numberOfTrailingZeros(checkers)];
+        }
+        return 0;
+    }
+
+    private static long pinnedPieces(ChessBoard board, int king, ChessGame.TeamColor us)
+    {
+        ChessGame.TeamColor them = us.opponent();
+        long occupied = board.getOccupied();
+        long queens = board.getPieces(them, ChessPiece.PieceType.QUEEN);
+        long snipers = (SlidingAttacks.rookAttacks(king, 0) & (board.getPieces(them, ChessPiece.PieceType.ROOK) | queens))
+                | (SlidingAttacks.bishopAttacks(king, 0) & (board.getPieces(them, ChessPiece.PieceType.BISHOP) | queens));
+
+        long pinned = 0;
+        while(snipers != 0)
+        {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+
+            long blockers = MoveTables.Between[king][sniper] & occupied;
+            if(blockers != 0 && (blockers & (blockers - 1)) == 0)
+            {
+                pinned |= blockers & board.getPieces(us);
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * @return the squares a pawn may move to, of the kinds asked for and within the allowed squares
+     */
+    private static long pawnTargets(ChessBoard board, ChessGame.TeamColor us, int from, long allowed, int kinds)
+    {
+        boolean white = us == ChessGame.TeamColor.WHITE;
+        int row = from / 8;
+        if(row == (white ? 7 : 0))
+        {
+            return 0;
+        }
+
+        long occupied = board.getOccupied();
+        int forward = white ? 8 : -8;
+        long targets = MoveTables.PawnAttacks[us.ordinal()][from] & board.getPieces(us.opponent());
+        int oneStep = from + forward;
+        if((occupied & (1L << oneStep)) == 0)
+        {
+            targets |= 1L << oneStep;
+            int twoSteps = oneStep + forward;
+            if(row == (white ? 1 : 6) && (occupied & (1L << twoSteps)) == 0)
+            {
+                targets |= 1L << twoSteps;
+            }
+        }
+        targets &= allowed;
+
+        // every move to the last row promotes, so it is noisy even without a capture
+        if(row == (white ? 6 : 1))
+        {
+            return (kinds & Noisy) != 0 ? targets : 0;
+        }
+        return targets & (((kinds & Noisy) != 0 ? board.getPieces(us.opponent()) : 0)
+                | ((kinds & Quiet) != 0 ? ~occupied : 0));
+    }
+
+    private static void pawnMoves(int from, long targets, MoveList moves)
+    {
+        while(targets != 0)
+        {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            // a pawn reaching either end row promotes
+            if(to < 8 || to >= 56)
+            {
+                for(ChessPiece.PieceType promotion : PromotionTypes)
+                {
+                    moves.add(PackedMove.encode(from, to, promotion));
+                }
+            }
+            else
+            {
+                moves.add(PackedMove.encode(from, to, null));
+            }
+        }
+    }
+
+    /**
+     * @return the squares of the pawns that may legally capture en passant onto the target
+     */
+    private static long enPassantCapturers(ChessBoard board, ChessGame.TeamColor us, int king, int target,
+                                           long checkMask)
+    {
+        ChessGame.TeamColor them = us.opponent();
+        int captured = target + (us == ChessGame.TeamColor.WHITE ? -8 : 8);
+        if((checkMask & ((1L << target) | (1L << captured))) == 0)
+        {
+            return 0;
+        }
+
+        // our pawns that attack the target are the squares a pawn of theirs on it would attack
+        long capturers = MoveTables.PawnAttacks[them.ordinal()][target] & board.getPieces(us, ChessPiece.PieceType.PAWN);
+        if(king < 0)
+        {
+            return capturers;
+        }
+        long legal = 0;
+        while(capturers != 0)
+        {
+            long capturer = capturers & -capturers;
+            capturers ^= capturer;
+
+            long after = (board.getOccupied() ^ capturer ^ (1L << captured)) | (1L << target);
+            if((board.getAttackers(king, after, them) & ~(1L << captured)) == 0)
+            {
+                legal |= capturer;
+            }
+        }
+        return legal;
+    }
+
+    private static void castlingMoves(ChessBoard board, ChessGame.TeamColor us, int king, int castlingRights,
+                                      MoveList moves)
+    {
+        boolean white = us == ChessGame.TeamColor.WHITE;
+        int home = white ? 4 : 60;
+        if(king != home)
+        {
+            return;
+        }
+
+        ChessGame.TeamColor them = us.opponent();
+        long occupied = board.getOccupied();
+        ChessPiece rook = ChessPiece.of(us, ChessPiece.PieceType.ROOK);
+
+        int kingside = white ? ChessGame.WhiteKingside : ChessGame.BlackKingside;
+        if((castlingRights & kingside) != 0 && board.getPiece(home + 3) == rook
+                && (occupied & MoveTables.Between[home][home + 3]) == 0
+                && board.getAttackers(home + 1, occupied, them) == 0
+                && board.getAttackers(home + 2, occupied, them) == 0)
+        {
+            moves.add(PackedMove.encode(home, home + 2, null));
+        }
+
+        int queenside = white ? ChessGame.WhiteQueenside : ChessGame.BlackQueenside;
+        if((castlingRights & queenside) != 0 && board.getPiece(home - 4) == rook
+                && (occupied & MoveTables.Between[home][home - 4]) == 0
+                && board.getAttackers(home - 1, occupied, them) == 0
+                && board.getAttackers(home - 2, occupied, them) == 0)
+        {
+            moves.add(PackedMove.encode(home, home - 2, null));
+        }
+    }
+}
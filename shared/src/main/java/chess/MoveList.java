@@ -0,0 +1,127 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * A reusable, growable list of packed chess moves.
+ * <p>
+ * Move generators append to a caller-owned list instead of returning new
+ * collections, so a search can keep one list per ply and {@link #clear()} it
+ * between positions without creating garbage.
+ * <p>
+ * Moves are stored in {@link PackedMove} form.
+ */
+public final class MoveList
+{
+    private static final int DefaultCapacity = 256;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList()
+    {
+        this(DefaultCapacity);
+    }
+
+    public MoveList(int capacity)
+    {
+        moves = new int[capacity];
+    }
+
+    public void add(int move)
+    {
+        if(size == moves.length)
+        {
+            int[] grown = new int[moves.length * 2];
+            System.arraycopy(moves, 0, grown, 0, size);
+            moves = grown;
+        }
+        moves[size++] = move;
+    }
+
+    /**
+     * Adds a non-promoting move from one square to every square in a bitboard
+     *
+     * @param from    the start square index
+     * @param targets a bitboard of end squares
+     */
+    public void addAll(int from, long targets)
+    {
+        while(targets != 0)
+        {
+            add(from | (Long.numberOfTrailingZeros(targets) << 6));
+            targets &= targets - 1;
+        }
+    }
+
+    public int get(int index)
+    {
+        return moves[index];
+    }
+
+    public void set(int index, int move)
+    {
+        moves[index] = move;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public void clear()
+    {
+        size = 0;
+    }
+
+    /**
+     * Drops every move from an index on, keeping the ones before it
+     *
+     * @param newSize the number of moves to keep
+     */
+    public void truncate(int newSize)
+    {
+        size = newSize;
+    }
+
+    public boolean contains(int move)
+    {
+        for(int i = 0; i < size; i++)
+        {
+            if(moves[i] == move)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds every move in this list to a collection of {@link ChessMove}s
+     *
+     * @param target the collection to add to
+     */
+    public void addTo(Collection<ChessMove> target)
+    {
+        for(int i = 0; i < size; i++)
+        {
+            target.add(PackedMove.unpack(moves[i]));
+        }
+    }
+
+    /**
+     * @return a new list holding every move in this list as a {@link ChessMove}
+     */
+    public ArrayList<ChessMove> toChessMoves()
+    {
+        ArrayList<ChessMove> chessMoves = new ArrayList<>(size);
+        addTo(chessMoves);
+        return chessMoves;
+    }
+}
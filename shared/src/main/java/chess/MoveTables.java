@@ -0,0 +1,144 @@
+package chess;
+
+/**
+ * Precomputed tables for every square on the board: the squares a knight or king
+ * can reach, as positions and as bitboards, the squares a pawn attacks, and the
+ * lines between squares that checks and pins run along. Sliding pieces look their
+ * attacks up in {@link SlidingAttacks} instead.
+ */
+final class MoveTables
+{
+    /**
+     * The squares a knight on a square can jump to, indexed by square index
+     */
+    static final ChessPosition[][] KnightJumps = new ChessPosition[ChessBoard.SquareCount][];
+
+    /**
+     * The squares a king on a square can step to, indexed by square index
+     */
+    static final ChessPosition[][] KingSteps = new ChessPosition[ChessBoard.SquareCount][];
+
+    /**
+     * Bitboards of the squares a knight on a square attacks, indexed by square index
+     */
+    static final long[] KnightAttacks = new long[ChessBoard.SquareCount];
+
+    /**
+     * Bitboards of the squares a king on a square attacks, indexed by square index
+     */
+    static final long[] KingAttacks = new long[ChessBoard.SquareCount];
+
+    /**
+     * Bitboards of the squares a pawn on a square attacks, indexed by
+     * {@link ChessGame.TeamColor} ordinal and then square index
+     */
+    static final long[][] PawnAttacks = new long[2][ChessBoard.SquareCount];
+
+    /**
+     * Bitboards of the squares strictly between two squares that share a row, column
+     * or diagonal (empty otherwise), indexed by both square indexes
+     */
+    static final long[][] Between = new long[ChessBoard.SquareCount][ChessBoard.SquareCount];
+
+    /**
+     * Bitboards of the whole row, column or diagonal through two squares that share
+     * one (empty otherwise), indexed by both square indexes
+     */
+    static final long[][] Line = new long[ChessBoard.SquareCount][ChessBoard.SquareCount];
+
+    private static final int[][] KnightOffsets = {
+            {2, 1}, {2, -1}, {-2, 1}, {-2, -1},
+            {1, 2}, {-1, 2}, {1, -2}, {-1, -2}
+    };
+
+    static
+    {
+        ChessMove.Direction[] directions = ChessMove.Direction.values();
+        for(int square = 0; square < ChessBoard.SquareCount; square++)
+        {
+            ChessPosition start = ChessPosition.of(square);
+
+            ChessPosition[] steps = new ChessPosition[directions.length];
+            int stepCount = 0;
+            for(ChessMove.Direction direction : directions)
+            {
+                ChessPosition step = start.getNeighbor(direction);
+                if(step != null)
+                {
+                    steps[stepCount++] = step;
+                }
+            }
+            KingSteps[square] = trim(steps, stepCount);
+
+            ChessPosition[] jumps = new ChessPosition[KnightOffsets.length];
+            int jumpCount = 0;
+            for(int[] offset : KnightOffsets)
+            {
+                int row = start.getRow() + offset[0];
+                int col = start.getColumn() + offset[1];
+                if(ChessPosition.isOnBoard(row, col))
+                {
+                    jumps[jumpCount++] = ChessPosition.of(row, col);
+                }
+            }
+            KnightJumps[square] = trim(jumps, jumpCount);
+
+            KnightAttacks[square] = bitboardOf(KnightJumps[square]);
+            KingAttacks[square] = bitboardOf(KingSteps[square]);
+            for(ChessGame.TeamColor team : ChessGame.TeamColor.values())
+            {
+                int forwardRow = start.getRow() + (team == ChessGame.TeamColor.WHITE ? 1 : -1);
+                for(int col = start.getColumn() - 1; col <= start.getColumn() + 1; col += 2)
+                {
+                    if(ChessPosition.isOnBoard(forwardRow, col))
+                    {
+                        PawnAttacks[team.ordinal()][square] |= 1L << ChessPosition.of(forwardRow, col).getIndex();
+                    }
+                }
+            }
+        }
+
+        for(int a = 0; a < ChessBoard.SquareCount; a++)
+        {
+            for(int b = 0; b < ChessBoard.SquareCount; b++)
+            {
+                long bits = (1L << a) | (1L << b);
+                if(a == b)
+                {
+                    continue;
+                }
+                if((SlidingAttacks.rookAttacks(a, 0) & (1L << b)) != 0)
+                {
+                    Between[a][b] = SlidingAttacks.rookAttacks(a, 1L << b) & SlidingAttacks.rookAttacks(b, 1L << a);
+                    Line[a][b] = (SlidingAttacks.rookAttacks(a, 0) & SlidingAttacks.rookAttacks(b, 0)) | bits;
+                }
+                else if((SlidingAttacks.bishopAttacks(a, 0) & (1L << b)) != 0)
+                {
+                    Between[a][b] = SlidingAttacks.bishopAttacks(a, 1L << b) & SlidingAttacks.bishopAttacks(b, 1L << a);
+                    Line[a][b] = (SlidingAttacks.bishopAttacks(a, 0) & SlidingAttacks.bishopAttacks(b, 0)) | bits;
+                }
+            }
+        }
+    }
+
+    private MoveTables()
+    {
+    }
+
+    private static long bitboardOf(ChessPosition[] positions)
+    {
+        long bits = 0;
+        for(ChessPosition position : positions)
+        {
+            bits |= 1L << position.getIndex();
+        }
+        return bits;
+    }
+
+    private static ChessPosition[] trim(ChessPosition[] positions, int count)
+    {
+        ChessPosition[] trimmed = new ChessPosition[count];
+        System.arraycopy(positions, 0, trimmed, 0, count);
+        return trimmed;
+    }
+}
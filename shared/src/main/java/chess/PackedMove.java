@@ -0,0 +1,137 @@
+package chess;
+
+/**
+ * Packs a chess move into 16 bits, for move lists, move histories,
+ * transposition tables and stored game logs.
+ * <p>
+ * Bits 0-5 hold the start square index, bits 6-11 the end square index and
+ * bits 12-14 the promotion piece (0 for none, otherwise the
+ * {@link ChessPiece.PieceType} ordinal plus one). Packed moves are passed
+ * around as ints but always fit in a {@code short}; widen a stored short with
+ * {@code value & 0xFFFF}.
+ * <p>
+ * {@link #unpack(int)} returns shared {@link ChessMove} instances from a table
+ * of every move some piece could make on an empty board, so converting back
+ * to the object form does not allocate.
+ */
+public final class PackedMove
+{
+    /**
+     * A value that is never a real move, for "no move" slots
+     */
+    public static final int None = 0;
+
+    private static final ChessPiece.PieceType[] PieceTypes = ChessPiece.PieceType.values();
+
+    private static final ChessPiece.PieceType[] PromotionTypes = {
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT
+    };
+
+    private static final ChessMove[] Interned = new ChessMove[1 << 15];
+
+    static
+    {
+        for(int from = 0; from < ChessBoard.SquareCount; from++)
+        {
+            for(int to = 0; to < ChessBoard.SquareCount; to++)
+            {
+                int rowDistance = Math.abs(to / 8 - from / 8);
+                int colDistance = Math.abs(to % 8 - from % 8);
+                boolean line = rowDistance == 0 || colDistance == 0 || rowDistance == colDistance;
+                boolean jump = rowDistance * colDistance == 2;
+                if(from != to && (line || jump))
+                {
+                    intern(from, to, null);
+                }
+                if(rowDistance == 1 && colDistance <= 1 && isPromotion(from, to))
+                {
+                    for(ChessPiece.PieceType promotion : PromotionTypes)
+                    {
+                        intern(from, to, promotion);
+                    }
+                }
+            }
+        }
+    }
+
+    private PackedMove()
+    {
+    }
+
+    /**
+     * Packs a move given as square indexes
+     *
+     * @param from      the start square index
+     * @param to        the end square index
+     * @param promotion the piece a pawn promotes to, or null
+     * @return the packed move
+     */
+    public static int encode(int from, int to, ChessPiece.PieceType promotion)
+    {
+        return from | (to << 6) | (promotion == null ? 0 : (promotion.ordinal() + 1) << 12);
+    }
+
+    /**
+     * @return the start square index of a packed move
+     */
+    public static int from(int move)
+    {
+        return move & 0x3F;
+    }
+
+    /**
+     * @return the end square index of a packed move
+     */
+    public static int to(int move)
+    {
+        return (move >>> 6) & 0x3F;
+    }
+
+    /**
+     * @return the promotion piece of a packed move, or null if it is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move)
+    {
+        int code = (move >>> 12) & 0x7;
+        return code == 0 ? null : PieceTypes[code - 1];
+    }
+
+    /**
+     * @return the packed form of a move
+     */
+    public static int pack(ChessMove move)
+    {
+        return encode(move.getStartPosition().getIndex(), move.getEndPosition().getIndex(), move.getPromotionPiece());
+    }
+
+    /**
+     * Converts a packed move back to a {@link ChessMove}, sharing one instance per move
+     * whenever the move is one a piece could make
+     *
+     * @param move the packed move
+     * @return an equal {@link ChessMove}
+     */
+    public static ChessMove unpack(int move)
+    {
+        ChessMove interned = Interned[move & 0x7FFF];
+        if(interned != null)
+        {
+            return interned;
+        }
+        return new ChessMove(ChessPosition.of(from(move)), ChessPosition.of(to(move)), promotion(move));
+    }
+
+    private static boolean isPromotion(int from, int to)
+    {
+        return (from / 8 == 6 && to / 8 == 7) || (from / 8 == 1 && to / 8 == 0);
+    }
+
+    private static void intern(int from, int to, ChessPiece.PieceType promotion)
+    {
+        Interned[encode(from, to, promotion)] =
+                new ChessMove(ChessPosition.of(from), ChessPosition.of(to), promotion);
+    }
+}
@@ -0,0 +1,199 @@
+package chess;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts perft leaf nodes on several threads by splitting the move tree across
+ * a {@link ForkJoinPool}.
+ * <p>
+ * Every move at the root and the plies just below it becomes a task with its
+ * own copy of the game, so workers never share a board or a move list. Once a
+ * subtree is {@link #SequentialDepth} plies deep it is counted on one thread
+ * with {@link Perft}, which keeps the tasks big enough that forking them costs
+ * little next to the work they do. Work stealing evens out subtrees of very
+ * different sizes.
+ * <p>
+ * Run as a program to measure how well it scales:
+ * {@code ParallelPerft [depth] [maxThreads]} times the standard positions at
+ * each power-of-two thread count and reports the speedup and efficiency
+ * (speedup divided by thread count) against one thread.
+ */
+public final class ParallelPerft implements AutoCloseable
+{
+    /**
+     * Subtrees this many plies deep or less are counted on a single thread
+     */
+    public static final int SequentialDepth = 3;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param threads the number of worker threads to count with
+     */
+    public ParallelPerft(int threads)
+    {
+        if(threads < 1)
+        {
+            throw new IllegalArgumentException("need at least one thread");
+        }
+        pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * @return the number of worker threads
+     */
+    public int getThreads()
+    {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Counts the leaf nodes of the legal move tree below a game's position
+     *
+     * @param game  the game to count from; it is copied, not played on
+     * @param depth the number of plies to look ahead
+     * @return the number of positions reached after exactly {@code depth} plies
+     */
+    public long count(ChessGame game, int depth)
+    {
+        return pool.invoke(new SubtreeTask(new ChessGame(game), depth));
+    }
+
+    /**
+     * Counts the leaf nodes below each legal move of a game's position
+     *
+     * @param game  the game to count from; it is copied, not played on
+     * @param depth the number of plies to look ahead, including the root move
+     * @return the leaf count below each root move, in generation order
+     */
+    public Map<ChessMove, Long> divide(ChessGame game, int depth)
+    {
+        if(depth < 1)
+        {
+            throw new IllegalArgumentException("divide needs a depth of at least 1");
+        }
+        MoveList moves = new MoveList();
+        game.validMoves(game.getTeamTurn(), moves);
+
+        List<SubtreeTask> tasks = new ArrayList<>(moves.size());
+        for(int i = 0; i < moves.size(); i++)
+        {
+            tasks.add(childTask(game, moves.get(i), depth - 1));
+        }
+        tasks.forEach(pool::execute);
+
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        for(int i = 0; i < moves.size(); i++)
+        {
+            counts.put(PackedMove.unpack(moves.get(i)), tasks.get(i).join());
+        }
+        return counts;
+    }
+
+    /**
+     * Stops the worker threads
+     */
+    @Override
+    public void close()
+    {
+        pool.shutdown();
+    }
+
+    private static SubtreeTask childTask(ChessGame game, int move, int depth)
+    {
+        ChessGame child = new ChessGame(game);
+        child.makeMove(move);
+        return new SubtreeTask(child, depth);
+    }
+
+    /**
+     * Counts the leaves below one position, which it owns outright
+     */
+    private static final class SubtreeTask extends RecursiveTask<Long>
+    {
+        private final ChessGame game;
+        private final int depth;
+
+        SubtreeTask(ChessGame game, int depth)
+        {
+            this.game = game;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute()
+        {
+            if(depth <= SequentialDepth)
+            {
+                return Perft.count(game, depth);
+            }
+
+            MoveList moves = new MoveList();
+            game.validMoves(game.getTeamTurn(), moves);
+            List<SubtreeTask> children = new ArrayList<>(moves.size());
+            for(int i = 0; i < moves.size(); i++)
+            {
+                children.add(childTask(game, moves.get(i), depth - 1));
+            }
+            invokeAll(children);
+
+            long nodes = 0;
+            for(SubtreeTask child : children)
+            {
+                nodes += child.join();
+            }
+            return nodes;
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        PrintStream out = System.out;
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        List<Integer> threadCounts = new ArrayList<>();
+        for(int threads = 1; threads < maxThreads; threads *= 2)
+        {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(maxThreads);
+
+        long singleThreadNanos = 0;
+        for(int threads : threadCounts)
+        {
+            long nodes = 0;
+            long nanos = 0;
+            try(ParallelPerft perft = new ParallelPerft(threads))
+            {
+                for(Perft.Position position : Perft.Positions)
+                {
+                    int positionDepth = Math.min(depth, position.counts().length);
+                    long start = System.nanoTime();
+                    long count = perft.count(position.newGame(), positionDepth);
+                    nanos += System.nanoTime() - start;
+                    nodes += count;
+                    if(count != position.expected(positionDepth))
+                    {
+                        out.println(position.name() + " MISMATCH at depth " + positionDepth + ": " + count);
+                        System.exit(1);
+                    }
+                }
+            }
+
+            if(threads == 1)
+            {
+                singleThreadNanos = nanos;
+            }
+            double speedup = (double) singleThreadNanos / nanos;
+            out.printf("%3d threads  %,14d nodes  %,8d ms  %,13d nps  speedup %5.2f  efficiency %3.0f%%%n", threads,
+                    nodes, nanos / 1_000_000, nodes * 1_000_000_000L / nanos, speedup, 100 * speedup / threads);
+        }
+    }
+}
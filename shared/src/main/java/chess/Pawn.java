@@ -1,96 +1,75 @@
 package chess;
 
-import java.util.ArrayList;
-
-class Pawn extends ChessPiece
+final class Pawn
 {
-    private final ChessBoard board;
-    private final ChessPosition startPosition;
-    private final int initialRow;
+    private static final ChessPiece.PieceType[] PromotionTypes = {
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.BISHOP
+    };
 
-    public Pawn(ChessBoard board, ChessPosition startPosition)
+    private Pawn()
     {
-        super(board.getPiece(startPosition).getTeamColor(), board.getPiece(startPosition).getPieceType());
-
-        this.board = board;
-        this.startPosition = startPosition;
-        this.initialRow =
-                getTeamColor() == ChessGame.TeamColor.WHITE
-                        ? ChessPosition.BottomRow + 1
-                        : ChessPosition.TopRow - 1;
     }
 
-    public ArrayList<ChessMove> moves()
+    static void moves(ChessBoard board, int startSquare, ChessGame.TeamColor team, MoveList moves)
     {
-        if(getTeamColor() == ChessGame.TeamColor.WHITE)
-        {
-            return movesInDirections(ChessMove.Direction.NORTH, ChessMove.Direction.NORTHWEST, ChessMove.Direction.NORTHEAST);
-        }
-        else if(getTeamColor() == ChessGame.TeamColor.BLACK)
+        boolean white = team == ChessGame.TeamColor.WHITE;
+        int row = startSquare / 8 + ChessPosition.BottomRow;
+        int col = startSquare % 8 + ChessPosition.FirstColumn;
+        int initialRow = white ? ChessPosition.BottomRow + 1 : ChessPosition.TopRow - 1;
+        int lastRow = white ? ChessPosition.TopRow : ChessPosition.BottomRow;
+        int forward = white ? 8 : -8;
+
+        if(row == lastRow)
         {
-            return movesInDirections(ChessMove.Direction.SOUTH, ChessMove.Direction.SOUTHWEST, ChessMove.Direction.SOUTHEAST);
+            return;
         }
-        throw new UnsupportedOperationException();
-    }
 
-    private ArrayList<ChessMove> movesInDirections(ChessMove.Direction mainDirection, ChessMove.Direction takeDirection1, ChessMove.Direction takeDirection2)
-    {
-        ArrayList<ChessMove> moves = new ArrayList<>();
+        int oneStep = startSquare + forward;
+        if(board.getPiece(oneStep) == null)
+        {
+            movesTo(startSquare, oneStep, row + (white ? 1 : -1) == lastRow, moves);
 
-        moves.addAll(initialMoves(mainDirection));
-        moves.addAll(movesFor(mainDirection, false));
-        moves.addAll(movesFor(takeDirection1, true));
-        moves.addAll(movesFor(takeDirection2, true));
+            if(row == initialRow && board.getPiece(oneStep + forward) == null)
+            {
+                moves.add(PackedMove.encode(startSquare, oneStep + forward, null));
+            }
+        }
 
-        return moves;
+        if(col > ChessPosition.FirstColumn)
+        {
+            captureTo(board, startSquare, oneStep - 1, team, lastRow, moves);
+        }
+        if(col < ChessPosition.LastColumn)
+        {
+            captureTo(board, startSquare, oneStep + 1, team, lastRow, moves);
+        }
     }
 
-    private ArrayList<ChessMove> initialMoves(ChessMove.Direction direction)
+    private static void captureTo(ChessBoard board, int startSquare, int target, ChessGame.TeamColor team,
+                                  int lastRow, MoveList moves)
     {
-        ArrayList<ChessMove> move = new ArrayList<>();
-
-        if(startPosition.getRow() == initialRow)
+        ChessPiece blocker = board.getPiece(target);
+        if(blocker != null && blocker.getTeamColor() != team)
         {
-            if(board.getPiece(startPosition.getNeighbor(direction)) == null)
-            {
-                ChessPosition potentialMove = startPosition.getNeighbor(direction, direction);
-                if(board.getPiece(potentialMove) == null)
-                {
-                    move.add(new ChessMove(startPosition, potentialMove, null));
-                }
-            }
+            movesTo(startSquare, target, target / 8 + ChessPosition.BottomRow == lastRow, moves);
         }
-
-        return move;
     }
 
-    private ArrayList<ChessMove> movesFor(ChessMove.Direction direction, boolean isCapture)
+    private static void movesTo(int startSquare, int target, boolean promotes, MoveList moves)
     {
-        ArrayList<ChessMove> moves = new ArrayList<>();
-
-        ChessPosition potentialMove = startPosition.getNeighbor(direction);
-        if(potentialMove != null)
+        if(promotes)
         {
-            ChessPiece blocker = board.getPiece(potentialMove);
-            if(isCapture && blocker != null && isEnemy(blocker)
-                    ||
-                    !isCapture && blocker == null)
+            for(ChessPiece.PieceType promotion : PromotionTypes)
             {
-                if(potentialMove.getRow() == ChessPosition.BottomRow ||
-                   potentialMove.getRow() == ChessPosition.TopRow)
-                {
-                    moves.add(new ChessMove(startPosition, potentialMove, ChessPiece.PieceType.QUEEN));
-                    moves.add(new ChessMove(startPosition, potentialMove, ChessPiece.PieceType.ROOK));
-                    moves.add(new ChessMove(startPosition, potentialMove, ChessPiece.PieceType.KNIGHT));
-                    moves.add(new ChessMove(startPosition, potentialMove, ChessPiece.PieceType.BISHOP));
-                }
-                else
-                {
-                    moves.add(new ChessMove(startPosition, potentialMove, null));
-                }
+                moves.add(PackedMove.encode(startSquare, target, promotion));
             }
         }
-
-        return moves;
+        else
+        {
+            moves.add(PackedMove.encode(startSquare, target, null));
+        }
     }
 }
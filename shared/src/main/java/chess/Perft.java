@@ -0,0 +1,205 @@
+package chess;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth ("perft"), for
+ * checking the move generator against published counts and timing it.
+ * <p>
+ * The last ply is bulk counted: the number of legal moves is the number of
+ * leaves below a node one ply from the end, so those moves are never played.
+ * {@link #divide} breaks the count down by root move, which is the quickest way
+ * to find the move a wrong count hides under by comparing with another engine.
+ * <p>
+ * Run as a program to time the standard positions:
+ * {@code Perft [maxDepth]} runs the whole suite, and
+ * {@code Perft divide <position> <depth>} prints one position's divide.
+ */
+public final class Perft
+{
+    /**
+     * The standard perft positions and their known node counts, from depth 1 up
+     */
+    public static final List<Position> Positions = List.of(
+            new Position("start", Fen.StartingPosition,
+                    20, 400, 8_902, 197_281, 4_865_609, 119_060_324),
+            new Position("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48, 2_039, 97_862, 4_085_603, 193_690_690),
+            new Position("endgame", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14, 191, 2_812, 43_238, 674_624, 11_030_083),
+            new Position("promotions", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6, 264, 9_467, 422_333, 15_833_292),
+            new Position("discovered", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44, 1_486, 62_379, 2_103_487, 89_941_194),
+            new Position("middlegame", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46, 2_079, 89_890, 3_894_594, 164_075_551)
+    );
+
+    private static final int DefaultMaxDepth = 5;
+
+    /**
+     * @param name the name of one of the standard positions
+     * @return the position with that name
+     * @throws IllegalArgumentException if there is no such position
+     */
+    public static Position position(String name)
+    {
+        return Positions.stream()
+                .filter(p -> p.name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("unknown position " + name));
+    }
+
+    private final ChessGame game;
+    private final MoveList[] moveLists;
+
+    private Perft(ChessGame game, int depth)
+    {
+        this.game = game;
+        moveLists = new MoveList[Math.max(depth, 1)];
+        for(int i = 0; i < moveLists.length; i++)
+        {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Counts the leaf nodes of the legal move tree below a game's position
+     *
+     * @param game  the game to count from; it is played through and left as it was
+     * @param depth the number of plies to look ahead
+     * @return the number of positions reached after exactly {@code depth} plies
+     */
+    public static long count(ChessGame game, int depth)
+    {
+        return new Perft(game, depth).count(depth);
+    }
+
+    /**
+     * Counts the leaf nodes below each legal move of a game's position
+     *
+     * @param game  the game to count from; it is played through and left as it was
+     * @param depth the number of plies to look ahead, including the root move
+     * @return the leaf count below each root move, in generation order
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth)
+    {
+        if(depth < 1)
+        {
+            throw new IllegalArgumentException("divide needs a depth of at least 1");
+        }
+        Perft perft = new Perft(game, depth);
+        MoveList moves = new MoveList();
+        game.validMoves(game.getTeamTurn(), moves);
+
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        for(int i = 0; i < moves.size(); i++)
+        {
+            game.makeMove(moves.get(i));
+            counts.put(PackedMove.unpack(moves.get(i)), perft.count(depth - 1));
+            game.unmakeMove();
+        }
+        return counts;
+    }
+
+    private long count(int depth)
+    {
+        if(depth == 0)
+        {
+            return 1;
+        }
+        MoveList moves = moveLists[depth - 1];
+        moves.clear();
+        game.validMoves(game.getTeamTurn(), moves);
+        if(depth == 1)
+        {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        for(int i = 0; i < moves.size(); i++)
+        {
+            game.makeMove(moves.get(i));
+            nodes += count(depth - 1);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args)
+    {
+        PrintStream out = System.out;
+        if(args.length == 3 && args[0].equals("divide"))
+        {
+            Position position = position(args[1]);
+            long total = 0;
+            for(Map.Entry<ChessMove, Long> entry : divide(position.newGame(), Integer.parseInt(args[2])).entrySet())
+            {
+                out.println(Uci.encode(PackedMove.pack(entry.getKey())) + ": " + entry.getValue());
+                total += entry.getValue();
+            }
+            out.println("total: " + total);
+            return;
+        }
+
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : DefaultMaxDepth;
+        long totalNodes = 0;
+        long totalNanos = 0;
+        boolean allMatch = true;
+        for(Position position : Positions)
+        {
+            int depth = Math.min(maxDepth, position.counts().length);
+            ChessGame game = position.newGame();
+            long start = System.nanoTime();
+            long nodes = count(game, depth);
+            long nanos = System.nanoTime() - start;
+
+            long expected = position.expected(depth);
+            allMatch &= nodes == expected;
+            totalNodes += nodes;
+            totalNanos += nanos;
+            out.printf("%-11s depth %d  %,14d nodes  %s  %,8d ms  %,12d nps%n", position.name(), depth, nodes,
+                    nodes == expected ? "ok      " : "MISMATCH", nanos / 1_000_000, nodesPerSecond(nodes, nanos));
+        }
+        out.printf("total             %,14d nodes            %,8d ms  %,12d nps%n", totalNodes,
+                totalNanos / 1_000_000, nodesPerSecond(totalNodes, totalNanos));
+        if(!allMatch)
+        {
+            System.exit(1);
+        }
+    }
+
+    private static long nodesPerSecond(long nodes, long nanos)
+    {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+
+    /**
+     * A named position with its known perft counts
+     *
+     * @param name   a short name for the position
+     * @param fen    the position in FEN
+     * @param counts the leaf node count at each depth, starting from depth 1
+     */
+    public record Position(String name, String fen, long... counts)
+    {
+        /**
+         * @return the known leaf node count at a depth
+         */
+        public long expected(int depth)
+        {
+            return counts[depth - 1];
+        }
+
+        /**
+         * @return a new game at this position
+         */
+        public ChessGame newGame()
+        {
+            return Fen.parse(fen);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package chess;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game read by {@link PgnReader}.
+ *
+ * @param tags   the tag pairs, such as {@code White} and {@code Result}, in the order
+ *               they were written
+ * @param moves  the moves of the main line, without variations, each checked valid by
+ *               replaying the game
+ * @param result the result written after the moves, {@code 1-0}, {@code 0-1},
+ *               {@code 1/2-1/2} or {@code *}; the {@code Result} tag if none was
+ * @param error  why the game could not be read to its end, or null if it was; the
+ *               moves are then the ones read before the problem
+ */
+public record PgnGame(Map<String, String> tags, List<ChessMove> moves, String result, String error)
+{
+    /**
+     * @param name a tag name, such as {@code Event}
+     * @return the tag's value, or null if the game does not have it
+     */
+    public String tag(String name)
+    {
+        return tags.get(name);
+    }
+
+    /**
+     * @return a new game at the position the moves start from: the {@code FEN} tag if the
+     * game has one, otherwise the normal starting position
+     * @throws IllegalArgumentException if the {@code FEN} tag is not a position
+     */
+    public ChessGame startingPosition()
+    {
+        return startingPosition(tags);
+    }
+
+    static ChessGame startingPosition(Map<String, String> tags)
+    {
+        String fen = tags.get("FEN");
+        return fen == null ? new ChessGame() : Fen.parse(fen);
+    }
+
+    /**
+     * @return a new game with every move played, so {@link ChessGame#unmakeMove} can step
+     * back through it
+     */
+    public ChessGame replay()
+    {
+        ChessGame game = startingPosition();
+        for(ChessMove move : moves)
+        {
+            game.makeMove(PackedMove.pack(move));
+        }
+        return game;
+    }
+}
@@ -0,0 +1,520 @@
+package chess;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads games in Portable Game Notation.
+ * <p>
+ * {@link #games} streams a file of any size: it is read through a fixed buffer
+ * and cut into games as it goes, and the stream is parallel, handing games out
+ * to the stream's workers in batches of {@link #BatchSize}, so only the games
+ * being worked on are held in memory. Each game's moves are read with {@link San} and
+ * checked by replaying them on a {@link ChessGame}. Run the stream's terminal
+ * operation inside a {@link java.util.concurrent.ForkJoinPool} to choose the
+ * worker pool; otherwise it is the common pool.
+ * <p>
+ * Comments, variations, numeric annotation glyphs and move numbers are
+ * skipped. A game with a move that cannot be read is still returned, with its
+ * {@link PgnGame#error} set, so one bad game does not end the stream.
+ * <p>
+ * Run as a program to time reading a file: {@code PgnReader <games.pgn>}.
+ */
+public final class PgnReader
+{
+    /**
+     * How many games a worker takes from the file at a time
+     */
+    public static final int BatchSize = 64;
+
+    private static final int BufferBytes = 1 << 16;
+    private static final char ByteOrderMark = '\uFEFF';
+
+    private PgnReader()
+    {
+    }
+
+    /**
+     * Streams the games in a file, in parallel. Close the stream to close the file.
+     *
+     * @param file a PGN file, in UTF-8 (which includes plain ASCII)
+     * @return the games, in file order if the terminal operation keeps order
+     * @throws IOException if the file cannot be opened; later read errors are thrown
+     *                     from the stream as {@link UncheckedIOException}
+     */
+    public static Stream<PgnGame> games(Path file) throws IOException
+    {
+        GameSplitter splitter = new GameSplitter(FileChannel.open(file, StandardOpenOption.READ));
+        return StreamSupport.stream(splitter, true).map(PgnReader::parse).onClose(splitter::close);
+    }
+
+    /**
+     * Reads one game
+     *
+     * @param text the game's tag pairs and moves
+     * @return the game; if part of it cannot be read, one with its error set
+     */
+    public static PgnGame parse(CharSequence text)
+    {
+        Map<String, String> tags = new LinkedHashMap<>();
+        List<ChessMove> moves = new ArrayList<>();
+        String result = null;
+        ChessGame game = null;
+        MoveList candidates = new MoveList();
+
+        int length = text.length();
+        int i = 0;
+        while(i < length)
+        {
+            char c = text.charAt(i);
+            if(Character.isWhitespace(c))
+            {
+                i++;
+            }
+            else if(c == '%' && (i == 0 || text.charAt(i - 1) == '\n'))
+            {
+                i = lineEnd(text, i);
+            }
+            else if(c == '[')
+            {
+                if(game != null)
+                {
+                    return new PgnGame(tags, moves, result(result, tags), "tag pair after the moves at character " + i);
+                }
+                i = readTag(text, i, tags);
+                if(i < 0)
+                {
+                    return new PgnGame(tags, moves, result(result, tags), "unreadable tag pair");
+                }
+            }
+            else if(c == '{')
+            {
+                i = commentEnd(text, i);
+            }
+            else if(c == ';')
+            {
+                i = lineEnd(text, i);
+            }
+            else if(c == '(')
+            {
+                i = variationEnd(text, i);
+            }
+            else if(c == '$')
+            {
+                do
+                {
+                    i++;
+                }
+                while(i < length && Character.isDigit(text.charAt(i)));
+            }
+            else
+            {
+                int start = i;
+                while(i < length && !isDelimiter(text.charAt(i)))
+                {
+                    i++;
+                }
+                int end = i;
+                if(isResult(text, start, end))
+                {
+                    result = text.subSequence(start, end).toString();
+                    continue;
+                }
+                // a move number, 12. or 12..., may run straight into the move
+                int number = start;
+                while(number < end && Character.isDigit(text.charAt(number)))
+                {
+                    number++;
+                }
+                if(number > start && number < end && text.charAt(number) == '.')
+                {
+                    start = number;
+                    while(start < end && text.charAt(start) == '.')
+                    {
+                        start++;
+                    }
+                    if(start == end)
+                    {
+                        continue;
+                    }
+                }
+
+                if(game == null)
+                {
+                    try
+                    {
+                        game = PgnGame.startingPosition(tags);
+                    }
+                    catch(IllegalArgumentException e)
+                    {
+                        return new PgnGame(tags, moves, result(result, tags), e.getMessage());
+                    }
+                }
+                int move = San.decode(game, text, start, end, candidates);
+                if(move == PackedMove.None)
+                {
+                    return new PgnGame(tags, moves, result(result, tags), "not a valid move at ply "
+                            + (moves.size() + 1) + ": " + text.subSequence(start, end));
+                }
+                game.makeMove(move);
+                moves.add(PackedMove.unpack(move));
+            }
+        }
+        return new PgnGame(tags, moves, result(result, tags), null);
+    }
+
+    private static String result(String result, Map<String, String> tags)
+    {
+        return result != null ? result : tags.getOrDefault("Result", "*");
+    }
+
+    /**
+     * Reads a tag pair such as {@code [White "Morphy, Paul"]}
+     *
+     * @return the index after the closing bracket, or -1 if the tag pair is not well formed
+     */
+    private static int readTag(CharSequence text, int i, Map<String, String> tags)
+    {
+        int length = text.length();
+        int nameStart = ++i;
+        while(i < length && !Character.isWhitespace(text.charAt(i)) && text.charAt(i) != '"')
+        {
+            i++;
+        }
+        String name = text.subSequence(nameStart, i).toString();
+        while(i < length && Character.isWhitespace(text.charAt(i)))
+        {
+            i++;
+        }
+        if(name.isEmpty() || i >= length || text.charAt(i) != '"')
+        {
+            return -1;
+        }
+        StringBuilder value = new StringBuilder();
+        for(i++; i < length && text.charAt(i) != '"'; i++)
+        {
+            if(text.charAt(i) == '\\' && i + 1 < length)
+            {
+                i++;
+            }
+            value.append(text.charAt(i));
+        }
+        while(i < length && text.charAt(i) != ']' && text.charAt(i) != '\n')
+        {
+            i++;
+        }
+        if(i >= length || text.charAt(i) != ']')
+        {
+            return -1;
+        }
+        tags.put(name, value.toString());
+        return i + 1;
+    }
+
+    private static int lineEnd(CharSequence text, int i)
+    {
+        while(i < text.length() && text.charAt(i) != '\n')
+        {
+            i++;
+        }
+        return i;
+    }
+
+    private static int commentEnd(CharSequence text, int i)
+    {
+        while(i < text.length() && text.charAt(i) != '}')
+        {
+            i++;
+        }
+        return i + 1;
+    }
+
+    /**
+     * @return the index after a variation's closing parenthesis, skipping any variations
+     * and comments inside it
+     */
+    private static int variationEnd(CharSequence text, int i)
+    {
+        int depth = 0;
+        while(i < text.length())
+        {
+            char c = text.charAt(i);
+            if(c == '{')
+            {
+                i = commentEnd(text, i);
+                continue;
+            }
+            if(c == ';')
+            {
+                i = lineEnd(text, i);
+                continue;
+            }
+            if(c == '(')
+            {
+                depth++;
+            }
+            else if(c == ')' && --depth == 0)
+            {
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDelimiter(char c)
+    {
+        return Character.isWhitespace(c) || c == '{' || c == '(' || c == ')' || c == ';' || c == '[' || c == '$';
+    }
+
+    private static boolean isResult(CharSequence text, int start, int end)
+    {
+        return switch(end - start)
+        {
+            case 1 -> text.charAt(start) == '*';
+            case 3 -> matches(text, start, "1-0") || matches(text, start, "0-1");
+            case 7 -> matches(text, start, "1/2-1/2");
+            default -> false;
+        };
+    }
+
+    private static boolean matches(CharSequence text, int start, String expected)
+    {
+        for(int i = 0; i < expected.length(); i++)
+        {
+            if(text.charAt(start + i) != expected.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        PrintStream out = System.out;
+        if(args.length != 1)
+        {
+            out.println("usage: PgnReader <games.pgn>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        long[] counts = new long[3];
+        try(Stream<PgnGame> games = games(Path.of(args[0])))
+        {
+            games.forEach(game -> {
+                synchronized(counts)
+                {
+                    counts[0]++;
+                    counts[1] += game.moves().size();
+                    counts[2] += game.error() == null ? 0 : 1;
+                }
+            });
+        }
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        out.printf("%,d games, %,d moves, %,d with errors in %,d ms: %,d games/s%n", counts[0], counts[1], counts[2],
+                millis, counts[0] * 1000 / millis);
+    }
+
+    /**
+     * Reads a file through a fixed buffer and cuts it into the text of each game. A game
+     * ends where a tag pair starts a line after some moves, or at the end of the file.
+     */
+    private static final class GameSplitter implements Spliterator<String>
+    {
+        private final FileChannel channel;
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(BufferBytes).flip();
+        private final CharBuffer chars = CharBuffer.allocate(BufferBytes).flip();
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final StringBuilder text = new StringBuilder();
+        private boolean endOfFile;
+        private boolean decoded;
+
+        // where the scan is within the current line and game
+        private boolean lineStart = true;
+        private boolean tagLine;
+        private boolean lineComment;
+        private boolean braceComment;
+        private boolean sawMoves;
+
+        GameSplitter(FileChannel channel)
+        {
+            this.channel = channel;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action)
+        {
+            String game = next();
+            if(game == null)
+            {
+                return false;
+            }
+            action.accept(game);
+            return true;
+        }
+
+        @Override
+        public Spliterator<String> trySplit()
+        {
+            String[] batch = new String[BatchSize];
+            int count = 0;
+            while(count < BatchSize && (batch[count] = next()) != null)
+            {
+                count++;
+            }
+            return count == 0 ? null : Spliterators.spliterator(batch, 0, count, characteristics());
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics()
+        {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+
+        void close()
+        {
+            try
+            {
+                channel.close();
+            }
+            catch(IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * @return the text of the next game, or null at the end of the file
+         */
+        private String next()
+        {
+            while(true)
+            {
+                if(!chars.hasRemaining() && !fill())
+                {
+                    String game = text.toString();
+                    text.setLength(0);
+                    sawMoves = false;
+                    return game.isBlank() ? null : game;
+                }
+                char c = chars.get();
+                if(c == ByteOrderMark)
+                {
+                    continue;
+                }
+                if(c == '\n')
+                {
+                    lineStart = true;
+                    tagLine = false;
+                    lineComment = false;
+                }
+                else if(lineStart && !Character.isWhitespace(c))
+                {
+                    lineStart = false;
+                    if(c == '[' && !braceComment)
+                    {
+                        tagLine = true;
+                        if(sawMoves)
+                        {
+                            String game = text.toString();
+                            text.setLength(0);
+                            text.append(c);
+                            sawMoves = false;
+                            return game;
+                        }
+                    }
+                    else if(c == '%' && !braceComment)
+                    {
+                        lineComment = true;
+                    }
+                    else
+                    {
+                        sawMoves = true;
+                    }
+                }
+                if(!tagLine && !lineComment)
+                {
+                    if(braceComment)
+                    {
+                        braceComment = c != '}';
+                    }
+                    else if(c == '{')
+                    {
+                        braceComment = true;
+                    }
+                    else if(c == ';')
+                    {
+                        lineComment = true;
+                    }
+                }
+                text.append(c);
+            }
+        }
+
+        /**
+         * Decodes the next part of the file into the character buffer
+         *
+         * @return whether there is anything to read
+         */
+        private boolean fill()
+        {
+            chars.clear();
+            try
+            {
+                while(!decoded)
+                {
+                    if(decoder.decode(bytes, chars, endOfFile).isOverflow())
+                    {
+                        break;
+                    }
+                    if(endOfFile)
+                    {
+                        decoder.flush(chars);
+                        decoded = true;
+                        break;
+                    }
+                    if(chars.position() > 0)
+                    {
+                        break;
+                    }
+                    bytes.compact();
+                    endOfFile = channel.read(bytes) < 0;
+                    bytes.flip();
+                }
+            }
+            catch(IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            chars.flip();
+            return chars.hasRemaining();
+        }
+    }
+}
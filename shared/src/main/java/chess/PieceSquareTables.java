@@ -0,0 +1,178 @@
+package chess;
+
+/**
+ * Material plus piece-square values for the static evaluation, one table for the
+ * middlegame and one for the endgame, which {@link ChessBoard} sums incrementally
+ * as pieces come and go.
+ * <p>
+ * The tables below are written from white's side, row 8 at the top and column 1
+ * on the left, and include each piece's material value. Black's entries are the
+ * same tables mirrored top to bottom and negated, so every sum is from white's
+ * point of view and a color-flipped board sums to exactly the negated score.
+ * <p>
+ * The game phase runs from {@link #MaxPhase} with every minor and major piece on
+ * the board down to 0 with none, and blends the two sums: early on the king
+ * wants shelter, late it wants the center, and pawns gain worth as they near
+ * promotion.
+ */
+public final class PieceSquareTables
+{
+    /**
+     * The game phase with all the starting pieces on the board
+     */
+    static final int MaxPhase = 24;
+
+    // phase weight by PieceType ordinal: KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    private static final int[] PhaseWeights = {0, 4, 1, 1, 2, 0};
+
+    private static final int[] MiddlegameValues = {0, 900, 330, 320, 500, 100};
+    private static final int[] EndgameValues = {0, 920, 320, 300, 520, 120};
+
+    private static final int[][] MiddlegameTables = {
+            { // king
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -20, -30, -30, -40, -40, -30, -30, -20,
+                    -10, -20, -20, -20, -20, -20, -20, -10,
+                    20, 20, 0, 0, 0, 0, 20, 20,
+                    20, 30, 10, 0, 0, 10, 30, 20
+            },
+            { // queen
+                    -20, -10, -10, -5, -5, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 5, 5, 5, 0, -10,
+                    -5, 0, 5, 5, 5, 5, 0, -5,
+                    0, 0, 5, 5, 5, 5, 0, -5,
+                    -10, 5, 5, 5, 5, 5, 0, -10,
+                    -10, 0, 5, 0, 0, 0, 0, -10,
+                    -20, -10, -10, -5, -5, -10, -10, -20
+            },
+            { // bishop
+                    -20, -10, -10, -10, -10, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 10, 10, 5, 0, -10,
+                    -10, 5, 5, 10, 10, 5, 5, -10,
+                    -10, 0, 10, 10, 10, 10, 0, -10,
+                    -10, 10, 10, 10, 10, 10, 10, -10,
+                    -10, 5, 0, 0, 0, 0, 5, -10,
+                    -20, -10, -10, -10, -10, -10, -10, -20
+            },
+            { // knight
+                    -50, -40, -30, -30, -30, -30, -40, -50,
+                    -40, -20, 0, 0, 0, 0, -20, -40,
+                    -30, 0, 10, 15, 15, 10, 0, -30,
+                    -30, 5, 15, 20, 20, 15, 5, -30,
+                    -30, 0, 15, 20, 20, 15, 0, -30,
+                    -30, 5, 10, 15, 15, 10, 5, -30,
+                    -40, -20, 0, 5, 5, 0, -20, -40,
+                    -50, -40, -30, -30, -30, -30, -40, -50
+            },
+            { // rook
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    5, 10, 10, 10, 10, 10, 10, 5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    0, 0, 0, 5, 5, 0, 0, 0
+            },
+            { // pawn
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    50, 50, 50, 50, 50, 50, 50, 50,
+                    10, 10, 20, 30, 30, 20, 10, 10,
+                    5, 5, 10, 25, 25, 10, 5, 5,
+                    0, 0, 0, 20, 20, 0, 0, 0,
+                    5, -5, -10, 0, 0, -10, -5, 5,
+                    5, 10, 10, -20, -20, 10, 10, 5,
+                    0, 0, 0, 0, 0, 0, 0, 0
+            }
+    };
+
+    private static final int[][] EndgameTables = {
+            { // king
+                    -50, -40, -30, -20, -20, -30, -40, -50,
+                    -30, -20, -10, 0, 0, -10, -20, -30,
+                    -30, -10, 20, 30, 30, 20, -10, -30,
+                    -30, -10, 30, 40, 40, 30, -10, -30,
+                    -30, -10, 30, 40, 40, 30, -10, -30,
+                    -30, -10, 20, 30, 30, 20, -10, -30,
+                    -30, -30, 0, 0, 0, 0, -30, -30,
+                    -50, -30, -30, -30, -30, -30, -30, -50
+            },
+            MiddlegameTables[1],
+            MiddlegameTables[2],
+            MiddlegameTables[3],
+            { // rook
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    0, 0, 0, 0, 0, 0, 0, 0
+            },
+            { // pawn
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    80, 80, 80, 80, 80, 80, 80, 80,
+                    50, 50, 50, 50, 50, 50, 50, 50,
+                    30, 30, 30, 30, 30, 30, 30, 30,
+                    15, 15, 15, 15, 15, 15, 15, 15,
+                    5, 5, 5, 5, 5, 5, 5, 5,
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    0, 0, 0, 0, 0, 0, 0, 0
+            }
+    };
+
+    /**
+     * Middlegame and endgame values by piece index and square index
+     */
+    static final int[][] Middlegame = build(MiddlegameTables, MiddlegameValues);
+    static final int[][] Endgame = build(EndgameTables, EndgameValues);
+
+    /**
+     * Phase weights by piece index
+     */
+    static final int[] Phase = new int[2 * PhaseWeights.length];
+
+    static
+    {
+        for(int i = 0; i < Phase.length; i++)
+        {
+            Phase[i] = PhaseWeights[i % PhaseWeights.length];
+        }
+    }
+
+    private PieceSquareTables()
+    {
+    }
+
+    /**
+     * @return the middlegame material value of a type of piece, in centipawns, without
+     * any bonus for its square; 0 for the king, which is never captured
+     */
+    public static int materialValue(ChessPiece.PieceType type)
+    {
+        return MiddlegameValues[type.ordinal()];
+    }
+
+    private static int[][] build(int[][] tables, int[] values)
+    {
+        int typeCount = tables.length;
+        int[][] built = new int[2 * typeCount][ChessBoard.SquareCount];
+        for(int type = 0; type < typeCount; type++)
+        {
+            for(int square = 0; square < ChessBoard.SquareCount; square++)
+            {
+                // the tables list row 8 first, and square indexes count from row 1
+                int value = values[type] + tables[type][square ^ 56];
+                built[ChessPiece.indexOf(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.values()[type])][square] = value;
+                built[ChessPiece.indexOf(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.values()[type])][square ^ 56] = -value;
+            }
+        }
+        return built;
+    }
+}
@@ -0,0 +1,302 @@
+package chess;
+
+/**
+ * Reads and writes moves in Standard Algebraic Notation, such as {@code e4},
+ * {@code Nbd7}, {@code exd8=Q+} or {@code O-O}, against the moves valid in a game's
+ * position.
+ * <p>
+ * Only the moves of the piece type involved, on the named column or row if the
+ * move gives one, are generated, into a list the caller reuses, and writing
+ * appends to a caller's {@link StringBuilder}, so neither allocates. Reading
+ * ignores check, mate and annotation marks after a move and accepts castling
+ * written with zeros; writing adds {@code +} or {@code #} and names the start
+ * column, row or square only when another piece of the same type could make the
+ * same move.
+ */
+public final class San
+{
+    // SAN letters by piece type ordinal
+    private static final char[] Letters = {'K', 'Q', 'B', 'N', 'R', 'P'};
+
+    private San()
+    {
+    }
+
+    /**
+     * Writes a move
+     *
+     * @param game the game the move is played in, with the mover to move
+     * @param move a valid move in {@link PackedMove} form
+     * @return the move, such as {@code Nbd7}
+     */
+    public static String encode(ChessGame game, int move)
+    {
+        StringBuilder text = new StringBuilder(8);
+        encode(game, move, text, new MoveList());
+        return text.toString();
+    }
+
+    /**
+     * Writes a move onto the end of a builder
+     *
+     * @param game  the game the move is played in, with the mover to move; the move is played
+     *              and taken back to see whether it checks or mates
+     * @param move  a valid move in {@link PackedMove} form
+     * @param text  where to write the move
+     * @param moves a list to generate other pieces' moves into; its contents are replaced
+     */
+    public static void encode(ChessGame game, int move, StringBuilder text, MoveList moves)
+    {
+        ChessBoard board = game.getBoard();
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece piece = board.getPiece(from);
+        ChessPiece.PieceType type = piece.getPieceType();
+
+        if(type == ChessPiece.PieceType.KING && Math.abs(to - from) == 2)
+        {
+            text.append(to > from ? "O-O" : "O-O-O");
+        }
+        else if(type == ChessPiece.PieceType.PAWN)
+        {
+            if(from % 8 != to % 8)
+            {
+                text.append((char) ('a' + from % 8)).append('x');
+            }
+            Uci.appendSquare(to, text);
+            ChessPiece.PieceType promotion = PackedMove.promotion(move);
+            if(promotion != null)
+            {
+                text.append('=').append(Letters[promotion.ordinal()]);
+            }
+        }
+        else
+        {
+            text.append(Letters[type.ordinal()]);
+            appendDisambiguation(game, move, text, moves);
+            if(board.getPiece(to) != null)
+            {
+                text.append('x');
+            }
+            Uci.appendSquare(to, text);
+        }
+
+        game.makeMove(move);
+        if(game.isInCheck(game.getTeamTurn()))
+        {
+            moves.clear();
+            game.validMoves(game.getTeamTurn(), moves);
+            text.append(moves.isEmpty() ? '#' : '+');
+        }
+        game.unmakeMove();
+    }
+
+    /**
+     * Names as little of the start square as tells the move apart from the same move by
+     * another piece of the same type: its column if that is enough, else its row, else both
+     */
+    private static void appendDisambiguation(ChessGame game, int move, StringBuilder text, MoveList moves)
+    {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        long others = game.getBoard().getPieces(game.getTeamTurn(), game.getBoard().getPiece(from).getPieceType())
+                & ~(1L << from);
+        if(others == 0)
+        {
+            return;
+        }
+        moves.clear();
+        game.validMovesFrom(others, moves);
+        boolean ambiguous = false;
+        boolean sameColumn = false;
+        boolean sameRow = false;
+        for(int i = 0; i < moves.size(); i++)
+        {
+            int other = PackedMove.from(moves.get(i));
+            if(PackedMove.to(moves.get(i)) == to)
+            {
+                ambiguous = true;
+                sameColumn |= other % 8 == from % 8;
+                sameRow |= other / 8 == from / 8;
+            }
+        }
+        if(!ambiguous)
+        {
+            return;
+        }
+        if(!sameColumn)
+        {
+            text.append((char) ('a' + from % 8));
+        }
+        else if(!sameRow)
+        {
+            text.append((char) ('1' + from / 8));
+        }
+        else
+        {
+            Uci.appendSquare(from, text);
+        }
+    }
+
+    /**
+     * Reads a move from part of a text
+     *
+     * @param game  the game the move is played in, with the mover to move
+     * @param text  the text holding the move
+     * @param start the index of the move's first character
+     * @param end   the index after its last character
+     * @param moves a list to generate candidate moves into; its contents are replaced
+     * @return the move in {@link PackedMove} form, or {@link PackedMove#None} if the text is
+     * not a move, no valid move matches it, or it does not say which of several is meant
+     */
+    public static int decode(ChessGame game, CharSequence text, int start, int end, MoveList moves)
+    {
+        while(end > start && isSuffix(text.charAt(end - 1)))
+        {
+            end--;
+        }
+        if(end - start < 2)
+        {
+            return PackedMove.None;
+        }
+        ChessGame.TeamColor team = game.getTeamTurn();
+        ChessBoard board = game.getBoard();
+
+        char first = text.charAt(start);
+        if(first == 'O' || first == '0')
+        {
+            return decodeCastling(game, text, start, end, moves);
+        }
+
+        ChessPiece.PieceType type = pieceType(first);
+        if(type == null)
+        {
+            type = ChessPiece.PieceType.PAWN;
+        }
+        else
+        {
+            start++;
+        }
+
+        ChessPiece.PieceType promotion = null;
+        if(type == ChessPiece.PieceType.PAWN && end - start >= 3)
+        {
+            promotion = pieceType(Character.toUpperCase(text.charAt(end - 1)));
+            if(promotion != null)
+            {
+                end--;
+                if(text.charAt(end - 1) == '=')
+                {
+                    end--;
+                }
+            }
+        }
+
+        if(end - start < 2)
+        {
+            return PackedMove.None;
+        }
+        int to = Uci.square(text.charAt(end - 2), text.charAt(end - 1));
+        if(to == ChessGame.NoSquare)
+        {
+            return PackedMove.None;
+        }
+        end -= 2;
+
+        // whatever is left says which piece moves: a column, a row, both, and maybe an x or -
+        long from = board.getPieces(team, type);
+        for(int i = start; i < end; i++)
+        {
+            char c = text.charAt(i);
+            if(c >= 'a' && c <= 'h')
+            {
+                from &= 0x0101010101010101L << (c - 'a');
+            }
+            else if(c >= '1' && c <= '8')
+            {
+                from &= 0xFFL << 8 * (c - '1');
+            }
+            else if(c != 'x' && c != '-' && c != ':')
+            {
+                return PackedMove.None;
+            }
+        }
+
+        moves.clear();
+        game.validMovesFrom(from, moves);
+        int found = PackedMove.None;
+        for(int i = 0; i < moves.size(); i++)
+        {
+            int move = moves.get(i);
+            if(PackedMove.to(move) == to && PackedMove.promotion(move) == promotion)
+            {
+                if(found != PackedMove.None)
+                {
+                    return PackedMove.None;
+                }
+                found = move;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Reads a move
+     *
+     * @param game the game the move is played in, with the mover to move
+     * @param text the move
+     * @return the move in {@link PackedMove} form, or {@link PackedMove#None} if the text is
+     * not a move, no valid move matches it, or it does not say which of several is meant
+     */
+    public static int decode(ChessGame game, CharSequence text)
+    {
+        return decode(game, text, 0, text.length(), new MoveList());
+    }
+
+    private static int decodeCastling(ChessGame game, CharSequence text, int start, int end, MoveList moves)
+    {
+        char letter = text.charAt(start);
+        int length = end - start;
+        if(length != 3 && length != 5)
+        {
+            return PackedMove.None;
+        }
+        for(int i = start; i < end; i++)
+        {
+            if(text.charAt(i) != ((i - start) % 2 == 0 ? letter : '-'))
+            {
+                return PackedMove.None;
+            }
+        }
+        int king = game.getBoard().getKingSquare(game.getTeamTurn());
+        if(king == ChessBoard.NoKing)
+        {
+            return PackedMove.None;
+        }
+        int castle = PackedMove.encode(king, length == 3 ? king + 2 : king - 2, null);
+        moves.clear();
+        game.validMovesFrom(1L << king, moves);
+        return moves.contains(castle) ? castle : PackedMove.None;
+    }
+
+    /**
+     * @return the piece type a capital letter names, or null; kings are K and knights N
+     */
+    private static ChessPiece.PieceType pieceType(char letter)
+    {
+        return switch(letter)
+        {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            default -> null;
+        };
+    }
+
+    private static boolean isSuffix(char c)
+    {
+        return c == '+' || c == '#' || c == '!' || c == '?';
+    }
+}
@@ -0,0 +1,270 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One endgame tablebase: the result of perfect play from every position of one
+ * set of pieces, as worked out by {@link TablebaseGenerator}.
+ * <p>
+ * Each position takes one byte holding the result for the team to move and the
+ * distance to mate in plies: a positive value wins with mate in that many
+ * plies, a negative value {@code -(n + 1)} loses to mate in {@code n} plies,
+ * and {@link #Draw} is a draw. Positions that cannot occur in a game read as
+ * draws. Castling and en passant are left out, and so is the fifty-move rule,
+ * so a long win may in practice be a draw.
+ * <p>
+ * A table on disk is a file named for its set, {@code KQK.tb} for example,
+ * holding a {@link #HeaderBytes}-byte header followed by the values in index
+ * order (see {@link TablebaseMaterial}). Opened tables are memory mapped, so
+ * they take no heap and every process that opens one shares it in the page
+ * cache.
+ */
+public final class Tablebase
+{
+    /**
+     * The value of a drawn position
+     */
+    public static final int Draw = 0;
+
+    /**
+     * The first eight bytes of every tablebase file
+     */
+    public static final long Magic = 0x4348455353544231L; // "CHESSTB1"
+
+    /**
+     * The size of the file header: the magic number and the number of positions
+     */
+    public static final int HeaderBytes = 2 * Long.BYTES;
+
+    /**
+     * The file name extension of tablebase files
+     */
+    public static final String Extension = ".tb";
+
+    private final TablebaseMaterial material;
+    private final ByteBuffer values;
+
+    Tablebase(TablebaseMaterial material, ByteBuffer values)
+    {
+        this.material = material;
+        this.values = values;
+    }
+
+    /**
+     * Maps a tablebase file into memory
+     *
+     * @param path the file, named for its set of pieces
+     * @return the table
+     * @throws IOException if the file cannot be read or is not the table its name says
+     */
+    public static Tablebase open(Path path) throws IOException
+    {
+        String fileName = path.getFileName().toString();
+        if(!fileName.endsWith(Extension))
+        {
+            throw new IOException(path + " is not a tablebase: its name does not end in " + Extension);
+        }
+        TablebaseMaterial material;
+        try
+        {
+            material = TablebaseMaterial.of(fileName.substring(0, fileName.length() - Extension.length()));
+        }
+        catch(IllegalArgumentException e)
+        {
+            throw new IOException(path + " is not a tablebase: " + e.getMessage(), e);
+        }
+
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long length = channel.size();
+            if(length != HeaderBytes + (long) material.size)
+            {
+                throw new IOException(path + " is not a tablebase: " + material.name + " needs "
+                        + (HeaderBytes + (long) material.size) + " bytes, not " + length);
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HeaderBytes);
+            if(header.getLong(0) != Magic || header.getLong(Long.BYTES) != material.size)
+            {
+                throw new IOException(path + " is not a tablebase: bad header");
+            }
+            // the mapping stays valid after the channel closes
+            return new Tablebase(material, channel.map(FileChannel.MapMode.READ_ONLY, HeaderBytes, material.size));
+        }
+    }
+
+    /**
+     * Writes the table to a file named for its set in a directory
+     *
+     * @param directory the directory to write to
+     * @return the file written
+     * @throws IOException if the file cannot be written
+     */
+    public Path write(Path directory) throws IOException
+    {
+        Path path = directory.resolve(name() + Extension);
+        ByteBuffer header = ByteBuffer.allocate(HeaderBytes).putLong(Magic).putLong(material.size).flip();
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            channel.write(header);
+            channel.write(values.duplicate().clear());
+        }
+        return path;
+    }
+
+    /**
+     * @return the name of the table's set of pieces, such as {@code KQK}
+     */
+    public String name()
+    {
+        return material.name;
+    }
+
+    /**
+     * @return the number of positions in the table, including ones that cannot occur
+     */
+    public int size()
+    {
+        return material.size;
+    }
+
+    /**
+     * @return the most plies any position in the table takes to mate
+     */
+    public int longestMate()
+    {
+        int longest = 0;
+        for(int index = 0; index < material.size; index++)
+        {
+            longest = Math.max(longest, plies(values.get(index)));
+        }
+        return longest;
+    }
+
+    /**
+     * @return whether a value is a win for the team to move
+     */
+    public static boolean isWin(int value)
+    {
+        return value > 0;
+    }
+
+    /**
+     * @return whether a value is a loss for the team to move
+     */
+    public static boolean isLoss(int value)
+    {
+        return value < 0;
+    }
+
+    /**
+     * @return how many plies until mate for a won or lost value; 0 for a draw
+     */
+    public static int plies(int value)
+    {
+        return value > 0 ? value : value < 0 ? -value - 1 : 0;
+    }
+
+    static byte win(int plies)
+    {
+        return (byte) plies;
+    }
+
+    static byte loss(int plies)
+    {
+        return (byte) -(plies + 1);
+    }
+
+    TablebaseMaterial material()
+    {
+        return material;
+    }
+
+    int get(int index)
+    {
+        return values.get(index);
+    }
+
+    /**
+     * Looks up a board holding exactly this table's pieces
+     *
+     * @param flipped whether the board's black pieces are the table's white ones
+     */
+    int probe(ChessBoard board, ChessGame.TeamColor turn, boolean flipped)
+    {
+        ChessPiece[] pieces = material.pieces;
+        int mirror = flipped ? 56 : 0;
+        int first = 0;
+        int second = 0;
+        int third = 0;
+        int fourth = 0;
+        for(int slot = 0; slot < pieces.length; slot++)
+        {
+            ChessGame.TeamColor team = flipped ? pieces[slot].getTeamColor().opponent() : pieces[slot].getTeamColor();
+            long bits = board.getPieces(team, pieces[slot].getPieceType());
+            // a second piece of the same kind takes the next square
+            for(int earlier = 0; earlier < slot; earlier++)
+            {
+                if(pieces[earlier] == pieces[slot])
+                {
+                    bits &= bits - 1;
+                }
+            }
+            int square = Long.numberOfTrailingZeros(bits) ^ mirror;
+            switch(slot)
+            {
+                case 0 -> first = square;
+                case 1 -> second = square;
+                case 2 -> third = square;
+                default -> fourth = square;
+            }
+        }
+        int tableTurn = (turn == ChessGame.TeamColor.WHITE) != flipped ? 0 : 1;
+        return values.get(material.index(tableTurn, first, second, third, fourth));
+    }
+
+    /**
+     * Looks up a position given as a list of pieces holding exactly this table's pieces
+     *
+     * @param flipped whether the position's black pieces are the table's white ones
+     * @param turn    0 if white is to move in the position, 1 if black is
+     */
+    int probe(ChessPiece[] position, int[] squares, int count, int turn, boolean flipped)
+    {
+        ChessPiece[] pieces = material.pieces;
+        int mirror = flipped ? 56 : 0;
+        int used = 0;
+        int first = 0;
+        int second = 0;
+        int third = 0;
+        int fourth = 0;
+        for(int slot = 0; slot < pieces.length; slot++)
+        {
+            for(int i = 0; i < count; i++)
+            {
+                ChessPiece piece = flipped ? ChessPiece.of(position[i].getTeamColor().opponent(),
+                        position[i].getPieceType()) : position[i];
+                if((used & 1 << i) == 0 && piece == pieces[slot])
+                {
+                    used |= 1 << i;
+                    int square = squares[i] ^ mirror;
+                    switch(slot)
+                    {
+                        case 0 -> first = square;
+                        case 1 -> second = square;
+                        case 2 -> third = square;
+                        default -> fourth = square;
+                    }
+                    break;
+                }
+            }
+        }
+        return values.get(material.index(turn ^ (flipped ? 1 : 0), first, second, third, fourth));
+    }
+}
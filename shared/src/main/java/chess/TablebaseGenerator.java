@@ -0,0 +1,662 @@
+package chess;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Builds endgame tablebases by retrograde analysis: starting from the
+ * checkmates, it works backwards one ply at a time to every position that
+ * can be forced into one.
+ * <p>
+ * A first pass looks at every position once. It counts the moves that stay
+ * within the table, and settles the ones that leave it, by capturing or
+ * promoting, by looking the result up in the smaller tables those lead to,
+ * which are built first. Then, for n = 0, 1, 2 and so on, each position lost
+ * in n plies makes every position that can move into it won in n + 1, and each
+ * position won in n plies takes one from the count of every position that can
+ * move into it; a position whose count runs out has nothing but losing moves,
+ * and is lost in one ply more than its longest. Positions are found from the
+ * ones after them by taking moves back ("unmoving"), which is cheap because
+ * nothing is ever uncaptured within a table. What is still unsettled when no
+ * more can be settled is a draw.
+ * <p>
+ * Every pass is split across a {@link ForkJoinPool}. Within a pass each
+ * position only ever moves to one value, whichever thread writes it, and the
+ * counts are atomic.
+ * <p>
+ * Run as a program to build tables into a directory:
+ * {@code TablebaseGenerator <directory> [sets...]} builds the
+ * {@link #DefaultSets} unless sets are named, along with the smaller tables
+ * they need.
+ */
+public final class TablebaseGenerator implements AutoCloseable
+{
+    /**
+     * The sets built when none are named
+     */
+    public static final List<String> DefaultSets = List.of("KQK", "KRK", "KPK", "KBNK");
+
+    // positions handled by one task before it splits no further
+    private static final int ChunkSize = 4096;
+
+    // the longest distance to mate a value can hold
+    private static final int MaxPlies = 126;
+
+    // what an unsettled position holds while the table is built; never a real value
+    private static final byte Unknown = Byte.MIN_VALUE;
+
+    private static final ChessPiece.PieceType[] Promotions = {
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT
+    };
+    private static final ChessPiece.PieceType[] NoPromotion = {null};
+
+    private final ForkJoinPool pool;
+    private final Map<String, Tablebase> built = new LinkedHashMap<>();
+
+    /**
+     * @param threads the number of threads to build with
+     */
+    public TablebaseGenerator(int threads)
+    {
+        if(threads < 1)
+        {
+            throw new IllegalArgumentException("need at least one thread");
+        }
+        pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Builds a table, and first every smaller table it can capture or promote into that
+     * this generator has not built yet
+     *
+     * @param name the set of pieces, stronger side first, such as {@code KBNK}
+     * @return the table, held in memory
+     * @throws IllegalArgumentException if the name is not a set of pieces a table can cover
+     */
+    public Tablebase generate(String name)
+    {
+        Tablebase table = built.get(name);
+        if(table != null)
+        {
+            return table;
+        }
+        TablebaseMaterial material = TablebaseMaterial.of(name);
+        for(String smaller : successors(material))
+        {
+            generate(smaller);
+        }
+        table = new Generation(material, new Tablebases(new ArrayList<>(built.values()))).run();
+        built.put(name, table);
+        return table;
+    }
+
+    /**
+     * @return every table built so far, smallest first
+     */
+    public List<Tablebase> built()
+    {
+        return List.copyOf(built.values());
+    }
+
+    /**
+     * Stops the worker threads
+     */
+    @Override
+    public void close()
+    {
+        pool.shutdown();
+    }
+
+    /**
+     * @return the sets a capture or promotion can turn a set into
+     */
+    private static List<String> successors(TablebaseMaterial material)
+    {
+        List<String> names = new ArrayList<>();
+        ChessPiece[] pieces = material.pieces;
+        for(int i = 0; i < pieces.length; i++)
+        {
+            ChessPiece.PieceType type = pieces[i].getPieceType();
+            if(type == ChessPiece.PieceType.KING)
+            {
+                continue;
+            }
+            names.add(nameWith(pieces, i, null));
+            if(type == ChessPiece.PieceType.PAWN)
+            {
+                for(ChessPiece.PieceType promotion : Promotions)
+                {
+                    names.add(nameWith(pieces, i, promotion));
+                }
+            }
+        }
+        return names.stream().distinct().toList();
+    }
+
+    /**
+     * @return the name of a set with one piece removed, or replaced by another type
+     */
+    private static String nameWith(ChessPiece[] pieces, int changed, ChessPiece.PieceType replacement)
+    {
+        StringBuilder white = new StringBuilder();
+        StringBuilder black = new StringBuilder();
+        for(int i = 0; i < pieces.length; i++)
+        {
+            ChessPiece.PieceType type = i == changed ? replacement : pieces[i].getPieceType();
+            if(type != null)
+            {
+                (pieces[i].getTeamColor() == ChessGame.TeamColor.WHITE ? white : black).append(letter(type));
+            }
+        }
+        return TablebaseMaterial.canonicalName(white.toString(), black.toString());
+    }
+
+    private static char letter(ChessPiece.PieceType type)
+    {
+        return switch(type)
+        {
+            case KING -> 'K';
+            case QUEEN -> 'Q';
+            case ROOK -> 'R';
+            case BISHOP -> 'B';
+            case KNIGHT -> 'N';
+            case PAWN -> 'P';
+        };
+    }
+
+    /**
+     * The work of building one table
+     */
+    private final class Generation
+    {
+        private final TablebaseMaterial material;
+        private final Tablebases smaller;
+        private final ChessPiece[] pieces;
+        private final int count;
+        // each piece's type and team ordinal, by table slot
+        private final ChessPiece.PieceType[] types;
+        private final int[] teams;
+        // the slot of each team's king, by team ordinal
+        private final int[] kings = new int[2];
+
+        private final byte[] values;
+        // for unsettled positions, how many moves are not yet known to lose
+        private final AtomicIntegerArray remaining;
+        // for unsettled positions, the longest mate a move out of the table loses to, or -1
+        private final byte[] longestExit;
+        // the longest distance to mate set so far, which the passes must reach
+        private final AtomicInteger deepest = new AtomicInteger();
+
+        Generation(TablebaseMaterial material, Tablebases smaller)
+        {
+            this.material = material;
+            this.smaller = smaller;
+            pieces = material.pieces;
+            count = pieces.length;
+            types = new ChessPiece.PieceType[count];
+            teams = new int[count];
+            for(int i = 0; i < count; i++)
+            {
+                types[i] = pieces[i].getPieceType();
+                teams[i] = pieces[i].getTeamColor().ordinal();
+                if(types[i] == ChessPiece.PieceType.KING)
+                {
+                    kings[teams[i]] = i;
+                }
+            }
+            values = new byte[material.size];
+            remaining = new AtomicIntegerArray(material.size);
+            longestExit = new byte[material.size];
+        }
+
+        Tablebase run()
+        {
+            forEachIndex(this::settleFirst);
+            for(int plies = 0; plies <= deepest.get(); plies++)
+            {
+                int settled = plies;
+                if(plies % 2 == 0)
+                {
+                    byte lost = Tablebase.loss(plies);
+                    forEachIndex((index, scratch) ->
+                    {
+                        if(values[index] == lost)
+                        {
+                            unmove(index, scratch, settled, true);
+                        }
+                    });
+                }
+                else
+                {
+                    byte won = Tablebase.win(plies);
+                    forEachIndex((index, scratch) ->
+                    {
+                        if(values[index] == won)
+                        {
+                            unmove(index, scratch, settled, false);
+                        }
+                    });
+                }
+            }
+
+            for(int index = 0; index < values.length; index++)
+            {
+                if(values[index] == Unknown)
+                {
+                    values[index] = Tablebase.Draw;
+                }
+            }
+            return new Tablebase(material, ByteBuffer.wrap(values));
+        }
+
+        /**
+         * Settles whatever a position's own moves settle: mate, stalemate, and moves out of
+         * the table; and counts the moves that stay in it
+         */
+        private void settleFirst(int index, Scratch scratch)
+        {
+            int[] squares = scratch.squares;
+            int turn = material.decode(index, squares);
+            long occupied = occupancy(squares);
+            if(!isLegal(squares, turn, occupied))
+            {
+                values[index] = Tablebase.Draw;
+                return;
+            }
+
+            int moves = 0;
+            int open = 0;
+            int quickestWin = Integer.MAX_VALUE;
+            int longestLoss = -1;
+            long own = teamOccupancy(squares, turn);
+            for(int slot = 0; slot < count; slot++)
+            {
+                if(teams[slot] != turn)
+                {
+                    continue;
+                }
+                int from = squares[slot];
+                boolean pawn = types[slot] == ChessPiece.PieceType.PAWN;
+                long targets = pawn ? pawnMoves(from, turn, occupied, occupied & ~own)
+                        : attacks(types[slot], turn, from, occupied) & ~own;
+                while(targets != 0)
+                {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    int captured = slotAt(squares, to);
+                    squares[slot] = to;
+                    long after = occupied & ~(1L << from) | 1L << to;
+                    boolean legal = !isAttacked(squares[kings[turn]], 1 - turn, squares, after, captured);
+                    boolean promotes = pawn && (to >>> 3 == (turn == 0 ? 7 : 0));
+                    if(legal && captured < 0 && !promotes)
+                    {
+                        moves++;
+                        open++;
+                    }
+                    else if(legal)
+                    {
+                        for(ChessPiece.PieceType promotion : promotes ? Promotions : NoPromotion)
+                        {
+                            moves++;
+                            int value = exitValue(scratch, slot, captured, promotion, 1 - turn);
+                            if(Tablebase.isLoss(value))
+                            {
+                                quickestWin = Math.min(quickestWin, Tablebase.plies(value) + 1);
+                            }
+                            else if(Tablebase.isWin(value))
+                            {
+                                longestLoss = Math.max(longestLoss, Tablebase.plies(value));
+                            }
+                            else
+                            {
+                                // a drawing way out keeps the position from ever being lost
+                                open++;
+                            }
+                        }
+                    }
+                    squares[slot] = from;
+                }
+            }
+
+            if(moves == 0)
+            {
+                boolean inCheck = isAttacked(squares[kings[turn]], 1 - turn, squares, occupied, -1);
+                values[index] = inCheck ? Tablebase.loss(0) : Tablebase.Draw;
+            }
+            else if(quickestWin != Integer.MAX_VALUE)
+            {
+                values[index] = Tablebase.win(reach(quickestWin));
+            }
+            else if(open == 0)
+            {
+                values[index] = Tablebase.loss(reach(longestLoss + 1));
+            }
+            else
+            {
+                values[index] = Unknown;
+                remaining.set(index, open);
+                longestExit[index] = (byte) longestLoss;
+            }
+        }
+
+        /**
+         * Takes back every move that could have led to a newly settled position, settling or
+         * counting down the positions before it
+         *
+         * @param lost whether the position is lost for the team to move, rather than won
+         */
+        private void unmove(int index, Scratch scratch, int plies, boolean lost)
+        {
+            int[] squares = scratch.squares;
+            int turn = material.decode(index, squares);
+            int mover = 1 - turn;
+            long occupied = occupancy(squares);
+            for(int slot = 0; slot < count; slot++)
+            {
+                if(teams[slot] != mover)
+                {
+                    continue;
+                }
+                int to = squares[slot];
+                long sources = types[slot] == ChessPiece.PieceType.PAWN ? pawnUnmoves(to, mover, occupied)
+                        : attacks(types[slot], mover, to, occupied) & ~occupied;
+                while(sources != 0)
+                {
+                    int from = Long.numberOfTrailingZeros(sources);
+                    sources &= sources - 1;
+                    squares[slot] = from;
+                    long before = occupied & ~(1L << to) | 1L << from;
+                    // before the move, the team now to move cannot have been in check
+                    if(!isAttacked(squares[kings[turn]], mover, squares, before, -1))
+                    {
+                        int previous = material.index(mover, squares[0], squares[1], squares[2], squares[3]);
+                        if(lost)
+                        {
+                            byte value = values[previous];
+                            if(value == Unknown || value > plies + 1)
+                            {
+                                values[previous] = Tablebase.win(reach(plies + 1));
+                            }
+                        }
+                        else if(values[previous] == Unknown && remaining.decrementAndGet(previous) == 0)
+                        {
+                            values[previous] = Tablebase.loss(reach(Math.max(plies, longestExit[previous]) + 1));
+                        }
+                    }
+                    squares[slot] = to;
+                }
+            }
+        }
+
+        /**
+         * @return the value, for the team to move after it, of a move that leaves the table
+         */
+        private int exitValue(Scratch scratch, int moved, int captured, ChessPiece.PieceType promotion, int turn)
+        {
+            int size = 0;
+            for(int slot = 0; slot < count; slot++)
+            {
+                if(slot != captured)
+                {
+                    scratch.exitPieces[size] = slot == moved && promotion != null
+                            ? ChessPiece.of(pieces[slot].getTeamColor(), promotion) : pieces[slot];
+                    scratch.exitSquares[size] = scratch.squares[slot];
+                    size++;
+                }
+            }
+            int value = smaller.probe(scratch.exitPieces, scratch.exitSquares, size, turn);
+            if(value == Tablebases.Miss)
+            {
+                throw new IllegalStateException(material.name + " needs a table it has not built");
+            }
+            return value;
+        }
+
+        /**
+         * Notes that some position is settled a number of plies from mate, so the passes
+         * go on at least that far
+         */
+        private int reach(int plies)
+        {
+            if(plies > MaxPlies)
+            {
+                throw new IllegalStateException(material.name + " has a mate longer than a table can hold");
+            }
+            deepest.accumulateAndGet(plies, Math::max);
+            return plies;
+        }
+
+        /**
+         * @return whether a position can occur: no two pieces on a square, no pawns on the
+         * first or last row, and the team not to move not in check
+         */
+        private boolean isLegal(int[] squares, int turn, long occupied)
+        {
+            if(Long.bitCount(occupied) != count)
+            {
+                return false;
+            }
+            for(int slot = 0; slot < count; slot++)
+            {
+                int row = squares[slot] >>> 3;
+                if(types[slot] == ChessPiece.PieceType.PAWN && (row == 0 || row == 7))
+                {
+                    return false;
+                }
+            }
+            return !isAttacked(squares[kings[1 - turn]], turn, squares, occupied, -1);
+        }
+
+        /**
+         * @param captured the slot of a piece that has just been captured and no longer
+         *                 attacks anything, or -1
+         */
+        private boolean isAttacked(int square, int attacker, int[] squares, long occupied, int captured)
+        {
+            long target = 1L << square;
+            for(int slot = 0; slot < count; slot++)
+            {
+                if(slot != captured && teams[slot] == attacker
+                        && (attacks(types[slot], attacker, squares[slot], occupied) & target) != 0)
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private long occupancy(int[] squares)
+        {
+            long occupied = 0;
+            for(int slot = 0; slot < count; slot++)
+            {
+                occupied |= 1L << squares[slot];
+            }
+            return occupied;
+        }
+
+        private long teamOccupancy(int[] squares, int team)
+        {
+            long occupied = 0;
+            for(int slot = 0; slot < count; slot++)
+            {
+                if(teams[slot] == team)
+                {
+                    occupied |= 1L << squares[slot];
+                }
+            }
+            return occupied;
+        }
+
+        private int slotAt(int[] squares, int square)
+        {
+            for(int slot = 0; slot < count; slot++)
+            {
+                if(squares[slot] == square)
+                {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private void forEachIndex(IndexAction action)
+        {
+            pool.invoke(new RangeAction(0, values.length, action));
+        }
+    }
+
+    /**
+     * @return the squares a piece attacks; for a pawn, only its diagonal captures
+     */
+    private static long attacks(ChessPiece.PieceType type, int team, int square, long occupied)
+    {
+        return switch(type)
+        {
+            case KING -> MoveTables.KingAttacks[square];
+            case KNIGHT -> MoveTables.KnightAttacks[square];
+            case PAWN -> MoveTables.PawnAttacks[team][square];
+            case BISHOP -> SlidingAttacks.bishopAttacks(square, occupied);
+            case ROOK -> SlidingAttacks.rookAttacks(square, occupied);
+            case QUEEN -> SlidingAttacks.queenAttacks(square, occupied);
+        };
+    }
+
+    /**
+     * @return the squares a pawn can move to: one or two steps forward onto empty squares,
+     * and diagonally onto enemy pieces
+     */
+    private static long pawnMoves(int square, int team, long occupied, long enemies)
+    {
+        int step = team == 0 ? 8 : -8;
+        long moves = MoveTables.PawnAttacks[team][square] & enemies;
+        int ahead = square + step;
+        if((occupied & 1L << ahead) == 0)
+        {
+            moves |= 1L << ahead;
+            int startRow = team == 0 ? 1 : 6;
+            if(square >>> 3 == startRow && (occupied & 1L << (ahead + step)) == 0)
+            {
+                moves |= 1L << (ahead + step);
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * @return the squares a pawn could have stepped forward to a square from, which must be
+     * empty and cannot be on its first row
+     */
+    private static long pawnUnmoves(int square, int team, long occupied)
+    {
+        int step = team == 0 ? 8 : -8;
+        int behind = square - step;
+        int behindRow = behind >>> 3;
+        if(behindRow == 0 || behindRow == 7 || (occupied & 1L << behind) != 0)
+        {
+            return 0;
+        }
+        long sources = 1L << behind;
+        int doubleStepRow = team == 0 ? 3 : 4;
+        if(square >>> 3 == doubleStepRow && (occupied & 1L << (behind - step)) == 0)
+        {
+            sources |= 1L << (behind - step);
+        }
+        return sources;
+    }
+
+    /**
+     * Per-task working space, so positions can be taken apart without allocating
+     */
+    private static final class Scratch
+    {
+        final int[] squares = new int[TablebaseMaterial.MaxPieces];
+        final ChessPiece[] exitPieces = new ChessPiece[TablebaseMaterial.MaxPieces];
+        final int[] exitSquares = new int[TablebaseMaterial.MaxPieces];
+    }
+
+    @FunctionalInterface
+    private interface IndexAction
+    {
+        void run(int index, Scratch scratch);
+    }
+
+    /**
+     * Runs an action on every index in a range, splitting the range in halves across the
+     * pool until the pieces are small
+     */
+    private static final class RangeAction extends RecursiveAction
+    {
+        private final int start;
+        private final int end;
+        private final IndexAction action;
+
+        RangeAction(int start, int end, IndexAction action)
+        {
+            this.start = start;
+            this.end = end;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if(end - start <= ChunkSize)
+            {
+                Scratch scratch = new Scratch();
+                for(int index = start; index < end; index++)
+                {
+                    action.run(index, scratch);
+                }
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new RangeAction(start, middle, action), new RangeAction(middle, end, action));
+        }
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        PrintStream out = System.out;
+        if(args.length < 1)
+        {
+            out.println("usage: TablebaseGenerator <directory> [sets...]");
+            System.exit(2);
+        }
+        Path directory = Files.createDirectories(Path.of(args[0]));
+        List<String> sets = args.length > 1 ? Arrays.asList(args).subList(1, args.length) : DefaultSets;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        try(TablebaseGenerator generator = new TablebaseGenerator(threads))
+        {
+            for(String set : sets)
+            {
+                long start = System.nanoTime();
+                generator.generate(set);
+                out.printf("%-6s built in %,d ms on %d threads%n", set, (System.nanoTime() - start) / 1_000_000,
+                        threads);
+            }
+            for(Tablebase table : generator.built())
+            {
+                Path path = table.write(directory);
+                out.printf("%-6s %,12d positions  longest mate %3d plies  %s%n", table.name(), table.size(),
+                        table.longestMate(), path);
+            }
+        }
+    }
+}
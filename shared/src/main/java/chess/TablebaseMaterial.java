@@ -0,0 +1,268 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The pieces of one endgame tablebase and how its positions are numbered.
+ * <p>
+ * A set is named by each side's pieces, king first, stronger side first:
+ * {@code KQK}, {@code KBNK}, {@code KRKP}. Whichever color actually has the
+ * stronger pieces, the table is built and probed with them as white, so one
+ * table covers both colorings. Within a side the pieces are ordered queen,
+ * rook, bishop, knight, pawn, and in the table the pieces come in name order:
+ * white king, white pieces, black king, black pieces.
+ * <p>
+ * A position's index is, from most to least significant: the team to move,
+ * the white king's square and then every other piece's square. The board's
+ * symmetries shrink the king's part: mirroring a position left to right gives
+ * one with the same result, so the white king is always moved onto columns 1
+ * to 4, and without pawns flipping top to bottom does too, so the king stays
+ * in the 16 squares of the lower left quarter. No position is its own mirror
+ * image, so every position has exactly one index.
+ */
+final class TablebaseMaterial
+{
+    /**
+     * The most pieces, kings included, a table can have
+     */
+    static final int MaxPieces = 4;
+
+    private static final String PieceOrder = "QRBNP";
+    private static final ChessPiece.PieceType[] OrderTypes = {
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.PAWN
+    };
+    private static final int[] OrderValues = {9, 5, 3, 3, 1};
+
+    private static final ChessGame.TeamColor[] Teams = ChessGame.TeamColor.values();
+    private static final ChessPiece.PieceType[] Types = ChessPiece.PieceType.values();
+
+    final String name;
+    /**
+     * The pieces in table order, white as the stronger side
+     */
+    final ChessPiece[] pieces;
+    final boolean pawns;
+    final int kingSlots;
+    final int size;
+    /**
+     * {@link #signature} of the pieces as named, and with the colors swapped
+     */
+    final int signature;
+    final int flippedSignature;
+
+    private TablebaseMaterial(String name, ChessPiece[] pieces)
+    {
+        this.name = name;
+        this.pieces = pieces;
+        boolean anyPawns = false;
+        int whiteSignature = 0;
+        int blackSignature = 0;
+        for(ChessPiece piece : pieces)
+        {
+            anyPawns |= piece.getPieceType() == ChessPiece.PieceType.PAWN;
+            whiteSignature += signatureUnit(piece.getTeamColor(), piece.getPieceType());
+            blackSignature += signatureUnit(piece.getTeamColor().opponent(), piece.getPieceType());
+        }
+        pawns = anyPawns;
+        kingSlots = pawns ? 32 : 16;
+        size = 2 * kingSlots << (6 * (pieces.length - 1));
+        signature = whiteSignature;
+        flippedSignature = blackSignature;
+    }
+
+    /**
+     * @param name a set's name, such as {@code KQK}
+     * @return the set
+     * @throws IllegalArgumentException if the name is not a set of at most {@link #MaxPieces}
+     *                                  pieces named stronger side first, or has pawns on both sides
+     */
+    static TablebaseMaterial of(String name)
+    {
+        int blackKing = name.indexOf('K', 1);
+        if(!name.startsWith("K") || blackKing < 0 || name.length() > MaxPieces)
+        {
+            throw new IllegalArgumentException("not a tablebase material set: " + name);
+        }
+        String white = name.substring(0, blackKing);
+        String black = name.substring(blackKing);
+        if(!canonicalName(white, black).equals(name))
+        {
+            throw new IllegalArgumentException("not a tablebase material set, or not named stronger side first: "
+                    + name + " (try " + canonicalName(white, black) + ")");
+        }
+        if(white.indexOf('P') >= 0 && black.indexOf('P') >= 0)
+        {
+            // tables leave out en passant, which only matters with pawns on both sides
+            throw new IllegalArgumentException("pawns on both sides are not supported: " + name);
+        }
+
+        List<ChessPiece> pieces = new ArrayList<>();
+        addSide(pieces, white, ChessGame.TeamColor.WHITE);
+        addSide(pieces, black, ChessGame.TeamColor.BLACK);
+        return new TablebaseMaterial(name, pieces.toArray(ChessPiece[]::new));
+    }
+
+    /**
+     * @return the name of the set with these pieces, stronger side first
+     */
+    static String canonicalName(String white, String black)
+    {
+        white = sortSide(white);
+        black = sortSide(black);
+        return compareSides(white, black) >= 0 ? white + black : black + white;
+    }
+
+    /**
+     * @return a number that identifies the pieces on a board by type and team, as long as
+     * there are no more than three of any one of them
+     */
+    static int signatureUnit(ChessGame.TeamColor team, ChessPiece.PieceType type)
+    {
+        return 1 << (2 * (team.ordinal() * Types.length + type.ordinal()));
+    }
+
+    /**
+     * @return the signature of every piece on a board, kings included; only meaningful for a
+     * board with no more than {@link #MaxPieces} pieces
+     */
+    static int signature(ChessBoard board)
+    {
+        int signature = 0;
+        for(ChessGame.TeamColor team : Teams)
+        {
+            for(ChessPiece.PieceType type : Types)
+            {
+                signature += Long.bitCount(board.getPieces(team, type)) * signatureUnit(team, type);
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * @param turn      0 for white to move, 1 for black
+     * @param whiteKing the white king's square
+     * @param second    the second piece's square, in table order
+     * @param third     the third piece's square, if the set has one
+     * @param fourth    the fourth piece's square, if the set has one
+     * @return the position's index, after mirroring it so the white king is where the
+     * index expects it
+     */
+    int index(int turn, int whiteKing, int second, int third, int fourth)
+    {
+        int mirror = symmetry(whiteKing);
+        int king = whiteKing ^ mirror;
+        int index = turn * kingSlots + (king >>> 3) * 4 + (king & 7);
+        index = (index << 6) | (second ^ mirror);
+        if(pieces.length > 2)
+        {
+            index = (index << 6) | (third ^ mirror);
+        }
+        if(pieces.length > 3)
+        {
+            index = (index << 6) | (fourth ^ mirror);
+        }
+        return index;
+    }
+
+    /**
+     * Reads the squares of a position back from its index
+     *
+     * @param index   the position's index
+     * @param squares where to put each piece's square, in table order
+     * @return 0 if white is to move, 1 if black is
+     */
+    int decode(int index, int[] squares)
+    {
+        for(int i = pieces.length - 1; i > 0; i--)
+        {
+            squares[i] = index & 63;
+            index >>>= 6;
+        }
+        int slot = index % kingSlots;
+        squares[0] = (slot / 4) * 8 + slot % 4;
+        return index / kingSlots;
+    }
+
+    /**
+     * @return what to XOR every square with to bring the white king onto the squares the
+     * index expects: columns 1 to 4, and rows 1 to 4 as well without pawns
+     */
+    private int symmetry(int whiteKing)
+    {
+        int mirror = (whiteKing & 7) > 3 ? 7 : 0;
+        if(!pawns && whiteKing >>> 3 > 3)
+        {
+            mirror |= 56;
+        }
+        return mirror;
+    }
+
+    private static void addSide(List<ChessPiece> pieces, String side, ChessGame.TeamColor team)
+    {
+        pieces.add(ChessPiece.of(team, ChessPiece.PieceType.KING));
+        for(int i = 1; i < side.length(); i++)
+        {
+            pieces.add(ChessPiece.of(team, OrderTypes[PieceOrder.indexOf(side.charAt(i))]));
+        }
+    }
+
+    private static String sortSide(String side)
+    {
+        if(side.isEmpty() || side.charAt(0) != 'K')
+        {
+            throw new IllegalArgumentException("a side must start with its king: " + side);
+        }
+        StringBuilder sorted = new StringBuilder("K");
+        for(int order = 0; order < PieceOrder.length(); order++)
+        {
+            for(int i = 1; i < side.length(); i++)
+            {
+                if(side.charAt(i) == PieceOrder.charAt(order))
+                {
+                    sorted.append(side.charAt(i));
+                }
+            }
+        }
+        if(sorted.length() != side.length())
+        {
+            throw new IllegalArgumentException("not a side of pieces: " + side);
+        }
+        return sorted.toString();
+    }
+
+    /**
+     * Orders sides by material, then by their pieces in {@link #PieceOrder}
+     */
+    private static int compareSides(String first, String second)
+    {
+        int difference = value(first) - value(second);
+        if(difference != 0)
+        {
+            return difference;
+        }
+        for(int i = 1; i < Math.min(first.length(), second.length()); i++)
+        {
+            int order = PieceOrder.indexOf(second.charAt(i)) - PieceOrder.indexOf(first.charAt(i));
+            if(order != 0)
+            {
+                return order;
+            }
+        }
+        return first.length() - second.length();
+    }
+
+    private static int value(String side)
+    {
+        int value = 0;
+        for(int i = 1; i < side.length(); i++)
+        {
+            value += OrderValues[PieceOrder.indexOf(side.charAt(i))];
+        }
+        return value;
+    }
+}
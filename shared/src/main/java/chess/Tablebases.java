@@ -0,0 +1,191 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A set of endgame tablebases to look positions up in, whichever team has which
+ * pieces.
+ * <p>
+ * A lookup allocates nothing and only reads the tables, so a set can be shared by
+ * any number of games and searches on any number of threads.
+ */
+public final class Tablebases
+{
+    /**
+     * What {@link #probe} returns for a position no table covers
+     */
+    public static final int Miss = Integer.MIN_VALUE;
+
+    private final Tablebase[] tables;
+    private final int maxPieces;
+
+    /**
+     * @param tables the tables to look positions up in
+     */
+    public Tablebases(List<Tablebase> tables)
+    {
+        this.tables = tables.toArray(Tablebase[]::new);
+        int most = 0;
+        for(Tablebase table : this.tables)
+        {
+            most = Math.max(most, table.material().pieces.length);
+        }
+        maxPieces = most;
+    }
+
+    /**
+     * Maps every tablebase file in a directory
+     *
+     * @param directory the directory holding the {@code .tb} files
+     * @return the tables found, which may be none
+     * @throws IOException if the directory or one of its tables cannot be read
+     */
+    public static Tablebases open(Path directory) throws IOException
+    {
+        List<Tablebase> tables = new ArrayList<>();
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + Tablebase.Extension))
+        {
+            for(Path file : files)
+            {
+                tables.add(Tablebase.open(file));
+            }
+        }
+        return new Tablebases(tables);
+    }
+
+    /**
+     * @return the names of the sets of pieces covered
+     */
+    public List<String> names()
+    {
+        List<String> names = new ArrayList<>(tables.length);
+        for(Tablebase table : tables)
+        {
+            names.add(table.name());
+        }
+        return names;
+    }
+
+    /**
+     * @return the most pieces, kings included, of any position the tables cover
+     */
+    public int maxPieces()
+    {
+        return maxPieces;
+    }
+
+    /**
+     * Looks up a game's position
+     *
+     * @param game the game
+     * @return the position's {@link Tablebase} value for the team to move, or {@link #Miss} if
+     * no table covers it or it has castling rights or an en passant capture, which tables leave out
+     */
+    public int probe(ChessGame game)
+    {
+        ChessBoard board = game.getBoard();
+        if(Long.bitCount(board.getOccupied()) > maxPieces || game.getCastlingRights() != 0
+                || canCaptureEnPassant(game))
+        {
+            return Miss;
+        }
+        int signature = TablebaseMaterial.signature(board);
+        for(Tablebase table : tables)
+        {
+            TablebaseMaterial material = table.material();
+            if(signature == material.signature)
+            {
+                return table.probe(board, game.getTeamTurn(), false);
+            }
+            if(signature == material.flippedSignature)
+            {
+                return table.probe(board, game.getTeamTurn(), true);
+            }
+        }
+        return Miss;
+    }
+
+    /**
+     * @return whether the team to move has a pawn that can capture en passant; after a double
+     * step with no pawn beside it, the position is the same as one without the square
+     */
+    private static boolean canCaptureEnPassant(ChessGame game)
+    {
+        int square = game.getEnPassantSquare();
+        if(square == ChessGame.NoSquare)
+        {
+            return false;
+        }
+        ChessGame.TeamColor turn = game.getTeamTurn();
+        return (MoveTables.PawnAttacks[turn.opponent().ordinal()][square]
+                & game.getBoard().getPieces(turn, ChessPiece.PieceType.PAWN)) != 0;
+    }
+
+    /**
+     * Looks up a game's position, as an outcome rather than a raw value
+     *
+     * @param game the game
+     * @return the result of perfect play for the team to move, or null if no table covers
+     * the position
+     */
+    public Result result(ChessGame game)
+    {
+        int value = probe(game);
+        if(value == Miss)
+        {
+            return null;
+        }
+        Outcome outcome = Tablebase.isWin(value) ? Outcome.WIN : Tablebase.isLoss(value) ? Outcome.LOSS : Outcome.DRAW;
+        return new Result(outcome, Tablebase.plies(value));
+    }
+
+    /**
+     * Looks up a position given as a list of pieces, for building one table from others
+     *
+     * @param turn 0 if white is to move, 1 if black is
+     */
+    int probe(ChessPiece[] pieces, int[] squares, int count, int turn)
+    {
+        int signature = 0;
+        for(int i = 0; i < count; i++)
+        {
+            signature += TablebaseMaterial.signatureUnit(pieces[i].getTeamColor(), pieces[i].getPieceType());
+        }
+        for(Tablebase table : tables)
+        {
+            TablebaseMaterial material = table.material();
+            if(signature == material.signature)
+            {
+                return table.probe(pieces, squares, count, turn, false);
+            }
+            if(signature == material.flippedSignature)
+            {
+                return table.probe(pieces, squares, count, turn, true);
+            }
+        }
+        return Miss;
+    }
+
+    /**
+     * How a position ends with perfect play, for the team to move
+     */
+    public enum Outcome
+    {
+        WIN,
+        DRAW,
+        LOSS
+    }
+
+    /**
+     * @param outcome how the position ends for the team to move
+     * @param plies   how many plies until mate; 0 for a draw
+     */
+    public record Result(Outcome outcome, int plies)
+    {
+    }
+}
@@ -0,0 +1,160 @@
+package chess;
+
+/**
+ * Reads and writes moves in the long algebraic form the UCI engine protocol uses:
+ * the start and end squares and, for a promotion, the new piece's letter, such
+ * as {@code e2e4}, {@code e1g1} for castling or {@code e7e8q}.
+ * <p>
+ * Writing appends to a caller's {@link StringBuilder} and reading scans the text
+ * in place, so neither allocates. Checking a read move against a game's valid
+ * moves generates only the moving piece's moves, into a list the caller reuses.
+ */
+public final class Uci
+{
+    private static final char[] PromotionLetters = new char[ChessPiece.PieceType.values().length];
+
+    static
+    {
+        PromotionLetters[ChessPiece.PieceType.QUEEN.ordinal()] = 'q';
+        PromotionLetters[ChessPiece.PieceType.ROOK.ordinal()] = 'r';
+        PromotionLetters[ChessPiece.PieceType.BISHOP.ordinal()] = 'b';
+        PromotionLetters[ChessPiece.PieceType.KNIGHT.ordinal()] = 'n';
+    }
+
+    private Uci()
+    {
+    }
+
+    /**
+     * Writes a move
+     *
+     * @param move the move in {@link PackedMove} form
+     * @return the move, such as {@code e2e4}
+     */
+    public static String encode(int move)
+    {
+        StringBuilder text = new StringBuilder(5);
+        encode(move, text);
+        return text.toString();
+    }
+
+    /**
+     * Writes a move onto the end of a builder
+     *
+     * @param move the move in {@link PackedMove} form
+     * @param text where to write the move
+     */
+    public static void encode(int move, StringBuilder text)
+    {
+        appendSquare(PackedMove.from(move), text);
+        appendSquare(PackedMove.to(move), text);
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        if(promotion != null)
+        {
+            text.append(PromotionLetters[promotion.ordinal()]);
+        }
+    }
+
+    /**
+     * Reads a move without checking it against any position
+     *
+     * @param text  the text holding the move
+     * @param start the index of the move's first character
+     * @param end   the index after its last character
+     * @return the move in {@link PackedMove} form, or {@link PackedMove#None} if the text is not
+     * two squares and an optional promotion letter
+     */
+    public static int parse(CharSequence text, int start, int end)
+    {
+        int length = end - start;
+        if(length != 4 && length != 5)
+        {
+            return PackedMove.None;
+        }
+        int from = square(text.charAt(start), text.charAt(start + 1));
+        int to = square(text.charAt(start + 2), text.charAt(start + 3));
+        if(from == ChessGame.NoSquare || to == ChessGame.NoSquare || from == to)
+        {
+            return PackedMove.None;
+        }
+        ChessPiece.PieceType promotion = null;
+        if(length == 5)
+        {
+            promotion = switch(Character.toLowerCase(text.charAt(start + 4)))
+            {
+                case 'q' -> ChessPiece.PieceType.QUEEN;
+                case 'r' -> ChessPiece.PieceType.ROOK;
+                case 'b' -> ChessPiece.PieceType.BISHOP;
+                case 'n' -> ChessPiece.PieceType.KNIGHT;
+                default -> null;
+            };
+            if(promotion == null)
+            {
+                return PackedMove.None;
+            }
+        }
+        return PackedMove.encode(from, to, promotion);
+    }
+
+    /**
+     * Reads a move and checks it is valid in a game's position
+     *
+     * @param game  the game, with the mover to move
+     * @param text  the text holding the move
+     * @param start the index of the move's first character
+     * @param end   the index after its last character
+     * @param moves a list to generate the moving piece's moves into; its contents are replaced
+     * @return the move in {@link PackedMove} form, or {@link PackedMove#None} if the text is not
+     * a move or the move is not valid
+     */
+    public static int decode(ChessGame game, CharSequence text, int start, int end, MoveList moves)
+    {
+        int move = parse(text, start, end);
+        if(move == PackedMove.None)
+        {
+            return PackedMove.None;
+        }
+        ChessPiece piece = game.getBoard().getPiece(PackedMove.from(move));
+        if(piece == null || piece.getTeamColor() != game.getTeamTurn())
+        {
+            return PackedMove.None;
+        }
+        moves.clear();
+        game.validMoves(PackedMove.from(move), moves);
+        return moves.contains(move) ? move : PackedMove.None;
+    }
+
+    /**
+     * Reads a move and checks it is valid in a game's position
+     *
+     * @param game the game, with the mover to move
+     * @param text the move
+     * @return the move in {@link PackedMove} form, or {@link PackedMove#None} if the text is not
+     * a move or the move is not valid
+     */
+    public static int decode(ChessGame game, CharSequence text)
+    {
+        return decode(game, text, 0, text.length(), new MoveList());
+    }
+
+    /**
+     * @return the square written as a column letter and a row digit, or
+     * {@link ChessGame#NoSquare} if that is not what they are
+     */
+    static int square(char column, char row)
+    {
+        if(column < 'a' || column > 'h' || row < '1' || row > '8')
+        {
+            return ChessGame.NoSquare;
+        }
+        return (row - '1') * 8 + column - 'a';
+    }
+
+    /**
+     * Writes a square as its column letter and row digit, such as {@code e4}
+     */
+    static void appendSquare(int square, StringBuilder text)
+    {
+        text.append((char) ('a' + square % 8)).append((char) ('1' + square / 8));
+    }
+}
@@ -0,0 +1,70 @@
+package chess;
+
+/**
+ * Random 64-bit keys for Zobrist hashing of positions.
+ * <p>
+ * A position's key is the XOR of the keys of everything in it: one per piece on
+ * a square, one if black is to move, one for the set of castling rights and one
+ * for the file of the en-passant square. Making a move only has to XOR out what
+ * changed and XOR in what replaced it.
+ * <p>
+ * The keys come from a fixed seed so they are the same on every run, which lets
+ * keys be stored in files and compared across processes.
+ */
+final class Zobrist
+{
+    /**
+     * Keys for a piece on a square, indexed by {@link ChessPiece#getIndex()} and then square index
+     */
+    static final long[][] PieceSquare = new long[12][ChessBoard.SquareCount];
+
+    /**
+     * Key XORed in when black is to move
+     */
+    static final long BlackToMove;
+
+    /**
+     * Keys indexed by a 4-bit set of castling rights
+     */
+    static final long[] Castling = new long[16];
+
+    /**
+     * Keys indexed by the file (column - 1) of the en-passant square
+     */
+    static final long[] EnPassantFile = new long[8];
+
+    private static long seed = 0x43484553535A4F42L;
+
+    static
+    {
+        for(long[] squares : PieceSquare)
+        {
+            for(int square = 0; square < squares.length; square++)
+            {
+                squares[square] = next();
+            }
+        }
+        BlackToMove = next();
+        for(int rights = 1; rights < Castling.length; rights++)
+        {
+            Castling[rights] = next();
+        }
+        for(int file = 0; file < EnPassantFile.length; file++)
+        {
+            EnPassantFile[file] = next();
+        }
+    }
+
+    private Zobrist()
+    {
+    }
+
+    private static long next()
+    {
+        // splitmix64
+        long z = (seed += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,40 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.PieceSquareTables;
+
+/**
+ * Scores positions for the search, in centipawns from the point of view of the
+ * team to move.
+ * <p>
+ * The score is material plus piece-square values, tapered from middlegame to
+ * endgame values as material comes off. {@link ChessBoard} keeps the sums up to
+ * date as moves are made and unmade, so evaluating a leaf is a few reads.
+ */
+public final class Evaluator
+{
+    private Evaluator()
+    {
+    }
+
+    /**
+     * @return the material value of a type of piece, in centipawns, the same one the
+     * middlegame score counts it at
+     */
+    public static int value(ChessPiece.PieceType type)
+    {
+        return PieceSquareTables.materialValue(type);
+    }
+
+    /**
+     * @param game the game to score
+     * @return the position's score for the team to move; positive is good for them
+     */
+    public static int evaluate(ChessGame game)
+    {
+        int score = game.getBoard().pieceSquareScore();
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+}
@@ -0,0 +1,329 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.MoveList;
+import chess.PackedMove;
+
+/**
+ * Hands out one position's moves best-first, in stages, generating each stage
+ * only when the search asks past the one before.
+ * <p>
+ * The stages are: the move from the transposition table, then captures and
+ * promotions by most valuable victim and least valuable attacker (MVV-LVA),
+ * then the two killer moves (quiet moves that caused a cutoff at the same ply
+ * elsewhere in the tree), then the countermove to the opponent's last move,
+ * then every other quiet move by its history score, and last the captures that
+ * {@link StaticExchange} says lose material, which the capture stage set aside.
+ * Most cutoffs come from the first two stages, so most nodes never generate
+ * their quiet moves at all.
+ * <p>
+ * For quiescence search the picker can instead hand out only the captures and
+ * promotions that do not lose material, and nothing else.
+ * <p>
+ * The table, killer and countermove come from other positions, so each is
+ * checked to be legal here before it is handed out, and is skipped when its
+ * stage's generated moves come around to it again.
+ */
+final class MovePicker
+{
+    private static final int HashStage = 0;
+    private static final int GenerateNoisyStage = 1;
+    private static final int NoisyStage = 2;
+    private static final int FirstKillerStage = 3;
+    private static final int SecondKillerStage = 4;
+    private static final int CounterMoveStage = 5;
+    private static final int GenerateQuietStage = 6;
+    private static final int QuietStage = 7;
+    private static final int BadNoisyStage = 8;
+    private static final int DoneStage = 9;
+
+    private final int id;
+    private final MoveList noisy = new MoveList();
+    private final MoveList quiet = new MoveList();
+    private final MoveList badNoisy = new MoveList();
+    private final MoveList pieceMoves = new MoveList(32);
+    private final int[] noisyScores = new int[256];
+    private final int[] quietScores = new int[256];
+
+    private ChessGame game;
+    private ChessBoard board;
+    private int[] history;
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+    private int counterMove;
+    private boolean noisyOnly;
+    private int stage;
+    private int index;
+
+    /**
+     * @param id the id of the searcher using the picker; helpers break ties between quiet
+     *           moves in their own order
+     */
+    MovePicker(int id)
+    {
+        this.id = id;
+    }
+
+    /**
+     * Starts picking moves for a new position
+     *
+     * @param game         the game, at the position to pick moves for
+     * @param hashMove     the transposition table's best move, or {@link PackedMove#None}
+     * @param firstKiller  the most recent killer move at this ply, or {@link PackedMove#None}
+     * @param secondKiller the older killer move at this ply, or {@link PackedMove#None}
+     * @param counterMove  the move that last refuted the opponent's previous move, or {@link PackedMove#None}
+     * @param history      quiet move scores, indexed by {@link #historyIndex}
+     */
+    void reset(ChessGame game, int hashMove, int firstKiller, int secondKiller, int counterMove, int[] history)
+    {
+        this.game = game;
+        this.board = game.getBoard();
+        this.history = history;
+        this.hashMove = hashMove;
+        this.firstKiller = firstKiller;
+        this.secondKiller = secondKiller;
+        this.counterMove = counterMove;
+        noisyOnly = false;
+        stage = HashStage;
+    }
+
+    /**
+     * Starts picking moves for a quiescence search: only the captures and promotions
+     * that do not lose material, best first
+     *
+     * @param game the game, at the position to pick moves for
+     */
+    void resetNoisy(ChessGame game)
+    {
+        this.game = game;
+        this.board = game.getBoard();
+        hashMove = PackedMove.None;
+        noisyOnly = true;
+        stage = GenerateNoisyStage;
+    }
+
+    /**
+     * @return the next move to search, or {@link PackedMove#None} when there are no more
+     */
+    int next()
+    {
+        while(true)
+        {
+            switch(stage)
+            {
+                case HashStage ->
+                {
+                    stage = GenerateNoisyStage;
+                    if(hashMove != PackedMove.None && isLegal(hashMove))
+                    {
+                        return hashMove;
+                    }
+                }
+                case GenerateNoisyStage ->
+                {
+                    noisy.clear();
+                    badNoisy.clear();
+                    game.noisyMoves(noisy);
+                    scoreNoisy();
+                    index = 0;
+                    stage = NoisyStage;
+                }
+                case NoisyStage ->
+                {
+                    while(index < noisy.size())
+                    {
+                        int move = pickBest(noisy, noisyScores, index++);
+                        if(move == hashMove)
+                        {
+                            continue;
+                        }
+                        if(StaticExchange.isAtLeast(game, move, 0))
+                        {
+                            return move;
+                        }
+                        if(!noisyOnly)
+                        {
+                            badNoisy.add(move);
+                        }
+                    }
+                    stage = noisyOnly ? DoneStage : FirstKillerStage;
+                }
+                case FirstKillerStage ->
+                {
+                    stage = SecondKillerStage;
+                    if(isNewQuiet(firstKiller, 0))
+                    {
+                        return firstKiller;
+                    }
+                }
+                case SecondKillerStage ->
+                {
+                    stage = CounterMoveStage;
+                    if(isNewQuiet(secondKiller, 1))
+                    {
+                        return secondKiller;
+                    }
+                }
+                case CounterMoveStage ->
+                {
+                    stage = GenerateQuietStage;
+                    if(isNewQuiet(counterMove, 2))
+                    {
+                        return counterMove;
+                    }
+                }
+                case GenerateQuietStage ->
+                {
+                    quiet.clear();
+                    game.quietMoves(quiet);
+                    scoreQuiet();
+                    index = 0;
+                    stage = QuietStage;
+                }
+                case QuietStage ->
+                {
+                    while(index < quiet.size())
+                    {
+                        int move = pickBest(quiet, quietScores, index++);
+                        if(move != hashMove && move != firstKiller && move != secondKiller && move != counterMove)
+                        {
+                            return move;
+                        }
+                    }
+                    index = 0;
+                    stage = BadNoisyStage;
+                }
+                case BadNoisyStage ->
+                {
+                    // set aside in the order they were picked, so still best first
+                    if(index < badNoisy.size())
+                    {
+                        return badNoisy.get(index++);
+                    }
+                    stage = DoneStage;
+                }
+                default ->
+                {
+                    return PackedMove.None;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return where a quiet move's score lives in a history table: by the moving piece and
+     * the square it moves to
+     */
+    static int historyIndex(ChessBoard board, int move)
+    {
+        return board.getPiece(PackedMove.from(move)).getIndex() * ChessBoard.SquareCount + PackedMove.to(move);
+    }
+
+    /**
+     * @return whether a move is quiet in the current position: it captures nothing and does
+     * not promote
+     */
+    boolean isQuiet(int move)
+    {
+        int to = PackedMove.to(move);
+        if(board.getPiece(to) != null || PackedMove.promotion(move) != null)
+        {
+            return false;
+        }
+        ChessPiece piece = board.getPiece(PackedMove.from(move));
+        return piece == null || piece.getPieceType() != ChessPiece.PieceType.PAWN || to != game.getEnPassantSquare();
+    }
+
+    /**
+     * @param move  a killer or countermove
+     * @param which 0 for the first killer, 1 for the second, 2 for the countermove
+     * @return whether the move is a legal quiet move not already handed out
+     */
+    private boolean isNewQuiet(int move, int which)
+    {
+        if(move == PackedMove.None || move == hashMove
+                || (which > 0 && move == firstKiller) || (which > 1 && move == secondKiller))
+        {
+            return false;
+        }
+        return isQuiet(move) && isLegal(move);
+    }
+
+    private boolean isLegal(int move)
+    {
+        ChessPiece piece = board.getPiece(PackedMove.from(move));
+        if(piece == null || piece.getTeamColor() != game.getTeamTurn())
+        {
+            return false;
+        }
+        pieceMoves.clear();
+        game.validMoves(PackedMove.from(move), pieceMoves);
+        return pieceMoves.contains(move);
+    }
+
+    private void scoreNoisy()
+    {
+        for(int i = 0; i < noisy.size(); i++)
+        {
+            int move = noisy.get(i);
+            ChessPiece victim = board.getPiece(PackedMove.to(move));
+            ChessPiece.PieceType promotion = PackedMove.promotion(move);
+            // a noisy move onto an empty square without promoting is en passant
+            int gain = victim != null ? Evaluator.value(victim.getPieceType())
+                    : promotion == null ? Evaluator.value(ChessPiece.PieceType.PAWN) : 0;
+            if(promotion != null)
+            {
+                gain += Evaluator.value(promotion);
+            }
+            int attacker = Evaluator.value(board.getPiece(PackedMove.from(move)).getPieceType());
+            noisyScores[i] = gain * 16 - attacker / 16;
+        }
+    }
+
+    private void scoreQuiet()
+    {
+        for(int i = 0; i < quiet.size(); i++)
+        {
+            int move = quiet.get(i);
+            quietScores[i] = history[historyIndex(board, move)] + tieBreak(move);
+        }
+    }
+
+    /**
+     * @return nothing for the main searcher; for a helper, a small fixed score of its own
+     * for each move, so helpers try moves with equal history in different orders
+     */
+    private int tieBreak(int move)
+    {
+        return id == 0 ? 0 : ((move + 1) * 0x9E3779B1 ^ id * 0x85EBCA6B) >>> 27;
+    }
+
+    /**
+     * Swaps the best-scored move from an index on into that index and returns it, so moves
+     * come out best first without sorting the ones a cutoff never reaches
+     */
+    private static int pickBest(MoveList moves, int[] scores, int index)
+    {
+        int best = index;
+        for(int i = index + 1; i < moves.size(); i++)
+        {
+            if(scores[i] > scores[best])
+            {
+                best = i;
+            }
+        }
+        if(best != index)
+        {
+            int move = moves.get(best);
+            moves.set(best, moves.get(index));
+            moves.set(index, move);
+            int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+        }
+        return moves.get(index);
+    }
+}
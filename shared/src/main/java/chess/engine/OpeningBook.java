@@ -0,0 +1,284 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.MoveList;
+import chess.PackedMove;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * A read-only opening book: for each position reached in a collection of games,
+ * the moves played from it and how often, as written by {@link OpeningBookBuilder}.
+ * <p>
+ * The file is a {@link #HeaderBytes}-byte header, the magic number and the
+ * entry count, followed by entries of {@link #EntryBytes} bytes each: the
+ * position's Zobrist key, the move in {@link PackedMove} form and its weight.
+ * Entries are sorted by key, and by weight from most to least within a key, so
+ * all the moves for a position sit together and are found by binary search.
+ * <p>
+ * The book is memory mapped rather than read in, so it takes no heap, opens in
+ * no time whatever its size, and every process that opens the same file shares
+ * one copy of it in the page cache. A lookup reads only the few pages its
+ * binary search touches. Looking up a key allocates nothing, and neither does
+ * looking up a game's move when given a list to check the move is legal with.
+ * Lookups never change the mapping, so any number of threads can share one book.
+ */
+public final class OpeningBook
+{
+    /**
+     * The first eight bytes of every book file
+     */
+    public static final long Magic = 0x4348455353424B31L; // "CHESSBK1"
+
+    /**
+     * The size of the file header: the magic number and the entry count
+     */
+    public static final int HeaderBytes = 2 * Long.BYTES;
+
+    /**
+     * The size of one entry: the key, the move and the weight
+     */
+    public static final int EntryBytes = Long.BYTES + 2 * Integer.BYTES;
+
+    private final MappedByteBuffer buffer;
+    private final int size;
+
+    private OpeningBook(MappedByteBuffer buffer, int size)
+    {
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    /**
+     * Maps a book file into memory
+     *
+     * @param path the book file
+     * @return the book
+     * @throws IOException if the file cannot be read or is not a book
+     */
+    public static OpeningBook open(Path path) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long length = channel.size();
+            if(length < HeaderBytes || length > Integer.MAX_VALUE)
+            {
+                throw new IOException(path + " is not an opening book: it is " + length + " bytes");
+            }
+            // the mapping stays valid after the channel closes
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if(buffer.getLong(0) != Magic)
+            {
+                throw new IOException(path + " is not an opening book: bad magic number");
+            }
+            long size = buffer.getLong(Long.BYTES);
+            if(size < 0 || HeaderBytes + size * EntryBytes != length)
+            {
+                throw new IOException(path + " is not an opening book: " + size + " entries do not fill "
+                        + length + " bytes");
+            }
+            return new OpeningBook(buffer, (int) size);
+        }
+    }
+
+    /**
+     * @return the number of entries in the book
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @param key a position's Zobrist key
+     * @return the index of the position's first entry, or -1 if the book has none for it
+     */
+    public int find(long key)
+    {
+        int low = 0;
+        int high = size;
+        // find the first entry whose key is not less than the one wanted
+        while(low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if(key(middle) < key)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low < size && key(low) == key ? low : -1;
+    }
+
+    /**
+     * @param key a position's Zobrist key
+     * @return the most played move from the position, in {@link PackedMove} form, or
+     * {@link PackedMove#None} if the book has none; the move is not checked to be legal
+     */
+    public int bestMove(long key)
+    {
+        int index = find(key);
+        return index < 0 ? PackedMove.None : move(index);
+    }
+
+    /**
+     * @param game the game, at the position to look up
+     * @return the most played move from the game's position that is legal in it, in
+     * {@link PackedMove} form, or {@link PackedMove#None} if the book has none
+     */
+    public int bestMove(ChessGame game)
+    {
+        return bestMove(game, new MoveList(32));
+    }
+
+    /**
+     * @param game  the game, at the position to look up
+     * @param moves a list to generate moves into while checking the book's moves are legal;
+     *              its contents are replaced
+     * @return the most played move from the game's position that is legal in it, in
+     * {@link PackedMove} form, or {@link PackedMove#None} if the book has none
+     */
+    public int bestMove(ChessGame game, MoveList moves)
+    {
+        long key = game.zobristKey();
+        for(int index = find(key); index >= 0 && index < size && key(index) == key; index++)
+        {
+            if(isLegal(game, move(index), moves))
+            {
+                return move(index);
+            }
+        }
+        return PackedMove.None;
+    }
+
+    /**
+     * Picks one of the book's moves for a position at random, each with a chance in
+     * proportion to its weight, so a bot does not play the same opening every game
+     *
+     * @param game   the game, at the position to look up
+     * @param random where to draw the choice from
+     * @return a legal move in {@link PackedMove} form, or {@link PackedMove#None} if the book
+     * has none for the position
+     */
+    public int pickMove(ChessGame game, RandomGenerator random)
+    {
+        return pickMove(game, random, new MoveList(32));
+    }
+
+    /**
+     * Picks one of the book's moves for a position at random, as {@link #pickMove(ChessGame,
+     * RandomGenerator)} does, without allocating
+     *
+     * @param game   the game, at the position to look up
+     * @param random where to draw the choice from
+     * @param moves  a list to generate moves into while checking the book's moves are legal;
+     *               its contents are replaced
+     * @return a legal move in {@link PackedMove} form, or {@link PackedMove#None} if the book
+     * has none for the position
+     */
+    public int pickMove(ChessGame game, RandomGenerator random, MoveList moves)
+    {
+        long key = game.zobristKey();
+        long total = 0;
+        int first = find(key);
+        for(int index = first; index >= 0 && index < size && key(index) == key; index++)
+        {
+            if(isLegal(game, move(index), moves))
+            {
+                total += weight(index);
+            }
+        }
+        if(total == 0)
+        {
+            return PackedMove.None;
+        }
+
+        long choice = random.nextLong(total);
+        for(int index = first; ; index++)
+        {
+            if(isLegal(game, move(index), moves))
+            {
+                choice -= weight(index);
+                if(choice < 0)
+                {
+                    return move(index);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param game the game, at the position to look up
+     * @return the book's legal moves for the position with their weights, most played
+     * first; empty if the book has none
+     */
+    public List<Choice> moves(ChessGame game)
+    {
+        long key = game.zobristKey();
+        MoveList legal = new MoveList(32);
+        List<Choice> moves = new ArrayList<>();
+        for(int index = find(key); index >= 0 && index < size && key(index) == key; index++)
+        {
+            if(isLegal(game, move(index), legal))
+            {
+                moves.add(new Choice(PackedMove.unpack(move(index)), weight(index)));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * A move the book knows for a position
+     *
+     * @param move   the move
+     * @param weight how many times it was played from the position
+     */
+    public record Choice(ChessMove move, int weight)
+    {
+    }
+
+    private long key(int index)
+    {
+        return buffer.getLong(HeaderBytes + index * EntryBytes);
+    }
+
+    private int move(int index)
+    {
+        return buffer.getInt(HeaderBytes + index * EntryBytes + Long.BYTES);
+    }
+
+    private int weight(int index)
+    {
+        return buffer.getInt(HeaderBytes + index * EntryBytes + Long.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Guards against another position with the same key, which a 64-bit key makes rare but
+     * not impossible
+     */
+    private static boolean isLegal(ChessGame game, int move, MoveList legal)
+    {
+        ChessPiece piece = game.getBoard().getPiece(PackedMove.from(move));
+        if(piece == null || piece.getTeamColor() != game.getTeamTurn())
+        {
+            return false;
+        }
+        legal.clear();
+        game.validMoves(PackedMove.from(move), legal);
+        return legal.contains(move);
+    }
+}
@@ -0,0 +1,290 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.PackedMove;
+import chess.PgnGame;
+import chess.PgnReader;
+import chess.Uci;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Builds an {@link OpeningBook} file from a collection of games: every move played
+ * in the first plies of a game adds one to that move's weight in the position it
+ * was played from.
+ * <p>
+ * Run as a program to build a book from a file of games:
+ * {@code OpeningBookBuilder <games> <book> [maxPly] [minWeight]}. A file whose
+ * name ends in {@code .pgn} is read with {@link PgnReader}; see {@link #addPgn}.
+ * Any other file holds one game per line, in coordinate form, from square then
+ * to square and any promotion letter ({@code e2e4 e7e5 g1f3 ... e7e8q}), with
+ * castling as the king's two square move. Blank lines and lines starting with
+ * {@code #} are skipped, as are result tokens such as {@code 1-0}. A line that
+ * cannot be read is reported and skipped; a game with an illegal move is
+ * reported and counts up to that move.
+ */
+public final class OpeningBookBuilder
+{
+    /**
+     * How many plies of each game the book covers unless told otherwise
+     */
+    public static final int DefaultMaxPly = 24;
+
+    private static final Set<String> Results = Set.of("1-0", "0-1", "1/2-1/2", "*");
+
+    private final int maxPly;
+    // weight by position key and move
+    private final Map<Entry, int[]> weights = new HashMap<>();
+    private int games;
+
+    /**
+     * Creates a builder that covers the first {@link #DefaultMaxPly} plies of each game
+     */
+    public OpeningBookBuilder()
+    {
+        this(DefaultMaxPly);
+    }
+
+    /**
+     * @param maxPly how many plies from the start of each game to add to the book
+     */
+    public OpeningBookBuilder(int maxPly)
+    {
+        if(maxPly < 1)
+        {
+            throw new IllegalArgumentException("a book needs at least one ply of each game");
+        }
+        this.maxPly = maxPly;
+    }
+
+    /**
+     * Adds the opening of a game played from the standard starting position
+     *
+     * @param moves the game's moves, in order
+     * @throws InvalidMoveException if a move is not legal where it is played; the moves
+     *                              before it have already been added
+     */
+    public void addGame(List<ChessMove> moves) throws InvalidMoveException
+    {
+        games++;
+        ChessGame game = new ChessGame();
+        for(int ply = 0; ply < Math.min(maxPly, moves.size()); ply++)
+        {
+            ChessMove move = moves.get(ply);
+            long key = game.zobristKey();
+            game.makeMove(move);
+            int[] weight = weights.computeIfAbsent(new Entry(key, PackedMove.pack(move)), entry -> new int[1]);
+            if(weight[0] < Integer.MAX_VALUE)
+            {
+                weight[0]++;
+            }
+        }
+    }
+
+    /**
+     * Adds the openings of every game in a PGN file. The games are read in parallel and
+     * added one at a time. A game that starts from a {@code FEN} tag rather than the
+     * standard position is skipped. A game with a move that cannot be read has the moves
+     * before it added. Either way the problem is passed to {@code problems}, which may be
+     * called from several of the reading threads at once.
+     *
+     * @param file     a PGN file
+     * @param problems what to tell about each game that is skipped or not added in full
+     * @return the number of games that were skipped or not added in full
+     * @throws IOException if the file cannot be read
+     */
+    public int addPgn(Path file, Consumer<String> problems) throws IOException
+    {
+        AtomicInteger failed = new AtomicInteger();
+        try(Stream<PgnGame> games = PgnReader.games(file))
+        {
+            games.forEach(game -> {
+                String setUp = game.tag("FEN");
+                String problem = setUp != null ? "skipped a game set up from " + setUp : game.error();
+                if(problem != null)
+                {
+                    failed.incrementAndGet();
+                    problems.accept(problem);
+                }
+                if(setUp != null)
+                {
+                    return;
+                }
+                synchronized(this)
+                {
+                    try
+                    {
+                        addGame(game.moves());
+                    }
+                    catch(InvalidMoveException e)
+                    {
+                        // the reader has already replayed the moves, so they are all valid
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+        }
+        return failed.get();
+    }
+
+    /**
+     * @return the number of games added so far
+     */
+    public int games()
+    {
+        return games;
+    }
+
+    /**
+     * @return the number of distinct position and move pairs added so far
+     */
+    public int entries()
+    {
+        return weights.size();
+    }
+
+    /**
+     * Writes the book, sorted for binary search
+     *
+     * @param path      the file to write; it is replaced if it exists
+     * @param minWeight the fewest times a move must have been played to be kept
+     * @return the number of entries written
+     * @throws IOException if the file cannot be written
+     */
+    public int write(Path path, int minWeight) throws IOException
+    {
+        List<Map.Entry<Entry, int[]>> sorted = new ArrayList<>();
+        for(Map.Entry<Entry, int[]> entry : weights.entrySet())
+        {
+            if(entry.getValue()[0] >= minWeight)
+            {
+                sorted.add(entry);
+            }
+        }
+        sorted.sort(Comparator.<Map.Entry<Entry, int[]>>comparingLong(entry -> entry.getKey().key())
+                .thenComparingInt(entry -> -entry.getValue()[0])
+                .thenComparingInt(entry -> entry.getKey().move()));
+
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path))))
+        {
+            out.writeLong(OpeningBook.Magic);
+            out.writeLong(sorted.size());
+            for(Map.Entry<Entry, int[]> entry : sorted)
+            {
+                out.writeLong(entry.getKey().key());
+                out.writeInt(entry.getKey().move());
+                out.writeInt(entry.getValue()[0]);
+            }
+        }
+        return sorted.size();
+    }
+
+    /**
+     * Reads one game written in coordinate form
+     *
+     * @param line the game's moves separated by spaces, such as {@code e2e4 e7e5 g1f3}
+     * @return the moves, without any result token
+     * @throws IllegalArgumentException if a token is not a coordinate move
+     */
+    public static List<ChessMove> parseGame(String line)
+    {
+        List<ChessMove> moves = new ArrayList<>();
+        for(String token : line.trim().split("\\s+"))
+        {
+            if(!token.isEmpty() && !Results.contains(token))
+            {
+                int move = Uci.parse(token, 0, token.length());
+                if(move == PackedMove.None)
+                {
+                    throw new IllegalArgumentException("not a coordinate move: " + token);
+                }
+                moves.add(PackedMove.unpack(move));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * A move played from a position
+     */
+    private record Entry(long key, int move)
+    {
+    }
+
+    /**
+     * Adds the games in a file of coordinate moves, one game per line
+     *
+     * @param problems what to tell about each line that could not be added in full, with
+     *                 its line number
+     * @return the number of lines that could not be added in full
+     */
+    private int addLines(Path file, Consumer<String> problems) throws IOException
+    {
+        int failed = 0;
+        try(BufferedReader reader = Files.newBufferedReader(file))
+        {
+            String line;
+            int lineNumber = 0;
+            while((line = reader.readLine()) != null)
+            {
+                lineNumber++;
+                if(line.isBlank() || line.startsWith("#"))
+                {
+                    continue;
+                }
+                try
+                {
+                    addGame(parseGame(line));
+                }
+                catch(InvalidMoveException | IllegalArgumentException e)
+                {
+                    failed++;
+                    problems.accept("line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+        }
+        return failed;
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        PrintStream out = System.out;
+        if(args.length < 2)
+        {
+            out.println("usage: OpeningBookBuilder <games> <book> [maxPly] [minWeight]");
+            System.exit(2);
+        }
+        Path gamesPath = Path.of(args[0]);
+        Path bookPath = Path.of(args[1]);
+        int maxPly = args.length > 2 ? Integer.parseInt(args[2]) : DefaultMaxPly;
+        int minWeight = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(maxPly);
+        Consumer<String> problems = problem -> System.err.println(gamesPath + ": " + problem);
+        int failed = gamesPath.toString().endsWith(".pgn") ? builder.addPgn(gamesPath, problems)
+                : builder.addLines(gamesPath, problems);
+
+        long start = System.nanoTime();
+        int written = builder.write(bookPath, minWeight);
+        out.printf("%,d games, %,d with errors; %,d entries, %,d written to %s (%,d bytes) in %,d ms%n",
+                builder.games(), failed, builder.entries(), written, bookPath, Files.size(bookPath),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
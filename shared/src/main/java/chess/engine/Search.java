@@ -0,0 +1,218 @@
+package chess.engine;
+
+import chess.ChessGame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Picks a move by negamax alpha-beta search with iterative deepening.
+ * <p>
+ * The search goes one ply deeper each iteration until it reaches a
+ * {@link SearchLimits limit}, and answers with the best move of the deepest
+ * iteration it finished. Each iteration after the first few starts with a narrow
+ * aspiration window around the previous score and widens it only if the score
+ * falls outside. Within a node, moves after the first are only tested with a
+ * null window to show they are no better, and searched in full if they are
+ * (principal variation search); the line of best moves is tracked back to the
+ * root. Results are kept in a {@link TranspositionTable}, which both
+ * orders moves and lets a deeper iteration skip what a shallower one already
+ * settled.
+ * At the end of each line a quiescence search resolves the captures still
+ * pending, so the evaluation is never taken halfway through an exchange.
+ * Positions covered by the game's endgame tablebases, if it has any (see
+ * {@link ChessGame#setTablebases}), are scored from them without searching.
+ * <p>
+ * The search plays on its own copy of the game, so the caller's game is never
+ * touched. It checks its limits every 1,024 positions, and stops just
+ * as quickly when {@link #cancel()} is called from another thread or the
+ * searching thread is interrupted, so a request thread waiting on it can always
+ * give up. A {@code Search} runs one search at a time.
+ * <p>
+ * With more than one thread the search is "Lazy SMP": helper threads search
+ * the same root on their own copies of the game, each starting at a different
+ * depth and trying quiet moves in a different order. They share nothing but
+ * the transposition table and the stop signal, and their answers are thrown
+ * away; what they add is table entries the main thread finds waiting for it,
+ * which lets it finish each iteration sooner. When the main thread stops, the
+ * helpers are stopped and joined before {@link #search} returns.
+ */
+public final class Search
+{
+    /**
+     * The score of checkmating on the move; mate in n plies scores {@code Mate - n}
+     */
+    public static final int Mate = 30_000;
+
+    /**
+     * A score beyond any real score, for the edges of the search window
+     */
+    public static final int Infinity = 32_000;
+
+    /**
+     * The most plies from the root any line can reach
+     */
+    static final int MaxPly = 2 * SearchLimits.MaxDepth;
+
+    private final TranspositionTable table;
+    private final int threads;
+    private final AtomicLong nodes = new AtomicLong();
+    private volatile boolean cancelled;
+    // set when the main thread is done, to stop the helpers
+    private volatile boolean finished;
+    private long nodeLimit;
+    private long deadline;
+
+    /**
+     * Creates a search with its own 16 MB transposition table
+     */
+    public Search()
+    {
+        this(new TranspositionTable(16));
+    }
+
+    /**
+     * Creates a single-threaded search
+     *
+     * @param table the transposition table to keep results in; it can be shared between searches
+     */
+    public Search(TranspositionTable table)
+    {
+        this(table, 1);
+    }
+
+    /**
+     * @param table   the transposition table to keep results in; it can be shared between searches
+     * @param threads the number of threads to search with, counting the calling thread
+     */
+    public Search(TranspositionTable table, int threads)
+    {
+        if(threads < 1)
+        {
+            throw new IllegalArgumentException("a search needs at least one thread");
+        }
+        this.table = table;
+        this.threads = threads;
+    }
+
+    /**
+     * @return the number of threads each search uses, counting the calling thread
+     */
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    /**
+     * Searches for the best move in a game's position
+     *
+     * @param game   the game to search; it is copied, not played on
+     * @param limits when to stop searching
+     * @return the best move found, with its score and expected line
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits)
+    {
+        cancelled = false;
+        finished = false;
+        nodes.set(0);
+        nodeLimit = limits.maxNodes();
+        deadline = limits.maxMillis() == 0 ? 0 : System.nanoTime() + limits.maxMillis() * 1_000_000;
+        table.newSearch();
+
+        int maxDepth = limits.depthLimit();
+        List<Thread> helpers = new ArrayList<>(threads - 1);
+        for(int id = 1; id < threads; id++)
+        {
+            Searcher helper = new Searcher(this, table, new ChessGame(game), id);
+            Thread thread = new Thread(() -> helper.iterate(maxDepth), "search-helper-" + id);
+            thread.setDaemon(true);
+            thread.start();
+            helpers.add(thread);
+        }
+
+        SearchResult result;
+        try
+        {
+            result = new Searcher(this, table, new ChessGame(game), 0).iterate(maxDepth);
+        }
+        finally
+        {
+            finished = true;
+            joinAll(helpers);
+        }
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), nodes.get(),
+                result.principalVariation());
+    }
+
+    private static void joinAll(List<Thread> helpers)
+    {
+        boolean interrupted = false;
+        for(Thread helper : helpers)
+        {
+            while(true)
+            {
+                try
+                {
+                    helper.join();
+                    break;
+                }
+                catch(InterruptedException e)
+                {
+                    // the helpers are already stopping; finish waiting, then pass the interrupt on
+                    interrupted = true;
+                }
+            }
+        }
+        if(interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops the running search as soon as possible; {@link #search} then returns the
+     * best move it has so far. Safe to call from any thread.
+     */
+    public void cancel()
+    {
+        cancelled = true;
+    }
+
+    /**
+     * @return whether a score means one side can force checkmate
+     */
+    public static boolean isMateScore(int score)
+    {
+        return Math.abs(score) >= Mate - MaxPly;
+    }
+
+    /**
+     * Adds a searcher's visited positions to the total and checks whether to stop
+     *
+     * @param visited positions visited since the last call
+     * @return whether the search must stop now
+     */
+    boolean shouldStop(long visited)
+    {
+        long total = nodes.addAndGet(visited);
+        return cancelled
+                || finished
+                || Thread.currentThread().isInterrupted()
+                || (nodeLimit != 0 && total >= nodeLimit)
+                || (deadline != 0 && System.nanoTime() - deadline >= 0);
+    }
+
+    /**
+     * @return whether the search was told to stop, as opposed to running out of budget
+     */
+    boolean isCancelled()
+    {
+        return cancelled || finished || Thread.currentThread().isInterrupted();
+    }
+
+    long nodes()
+    {
+        return nodes.get();
+    }
+}
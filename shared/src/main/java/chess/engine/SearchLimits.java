@@ -0,0 +1,57 @@
+package chess.engine;
+
+/**
+ * How far a {@link Search} may go before it must answer. The search stops at whichever
+ * limit it reaches first; a limit of zero means no limit of that kind.
+ *
+ * @param maxDepth the deepest iteration to search, in plies
+ * @param maxNodes the most positions to visit
+ * @param maxMillis the most time to take, in milliseconds
+ */
+public record SearchLimits(int maxDepth, long maxNodes, long maxMillis)
+{
+    /**
+     * The deepest a search can go no matter what limits it is given
+     */
+    public static final int MaxDepth = 64;
+
+    public SearchLimits
+    {
+        if(maxDepth < 0 || maxNodes < 0 || maxMillis < 0)
+        {
+            throw new IllegalArgumentException("search limits cannot be negative");
+        }
+    }
+
+    /**
+     * @return limits that stop after a fixed number of plies
+     */
+    public static SearchLimits depth(int maxDepth)
+    {
+        return new SearchLimits(maxDepth, 0, 0);
+    }
+
+    /**
+     * @return limits that stop after visiting a number of positions
+     */
+    public static SearchLimits nodes(long maxNodes)
+    {
+        return new SearchLimits(0, maxNodes, 0);
+    }
+
+    /**
+     * @return limits that stop after a number of milliseconds
+     */
+    public static SearchLimits millis(long maxMillis)
+    {
+        return new SearchLimits(0, 0, maxMillis);
+    }
+
+    /**
+     * @return the deepest iteration these limits allow
+     */
+    public int depthLimit()
+    {
+        return maxDepth == 0 ? MaxDepth : Math.min(maxDepth, MaxDepth);
+    }
+}
@@ -0,0 +1,19 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * What a {@link Search} found
+ *
+ * @param bestMove            the move to play, or null if the team to move has no legal move
+ * @param score               the score of the best move in centipawns for the team to move, or a mate
+ *                            score (see {@link Search#isMateScore})
+ * @param depth               the deepest iteration the search completed
+ * @param nodes               the number of positions visited
+ * @param principalVariation  the line the search expects, starting with the best move
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, List<ChessMove> principalVariation)
+{
+}
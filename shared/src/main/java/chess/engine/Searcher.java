@@ -0,0 +1,499 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.MoveList;
+import chess.PackedMove;
+import chess.Tablebase;
+import chess.Tablebases;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One thread's alpha-beta search over its own copy of a game, reporting to the
+ * {@link Search} that owns it.
+ * <p>
+ * Searcher 0 is the main thread. Helpers (any other id) start odd-numbered ones a
+ * ply deeper and break ties between quiet moves differently, so that they spread
+ * out over the tree instead of repeating the main thread's work.
+ * <p>
+ * Moves come from a {@link MovePicker} per ply. A quiet move that causes a cutoff
+ * becomes a killer at its ply and the countermove to the move before it, and
+ * gains history score at the expense of the quiet moves tried before it.
+ * <p>
+ * At the horizon a quiescence search plays on through captures and promotions
+ * until the position is quiet, so a score never stops in the middle of an
+ * exchange. Captures that {@link StaticExchange} says lose material are left out
+ * of it entirely, and near the horizon of the main search they are skipped too
+ * once they lose more than the remaining depth could plausibly win back.
+ * <p>
+ * If the game has endgame tablebases, any position below the root they cover is
+ * scored from them instead of searched.
+ */
+final class Searcher
+{
+    // positions visited between checks of the search limits
+    private static final int CheckInterval = 1024;
+
+    private static final int AspirationMinDepth = 4;
+    private static final int AspirationWindow = 25;
+
+    // history scores stay within plus or minus this, each update pulling them toward the bound
+    private static final int HistoryLimit = 16_384;
+
+    // losing captures are pruned at this depth or less, if they lose more than this much per ply of depth
+    private static final int SeePruningDepth = 6;
+    private static final int SeePruningMargin = 100;
+
+    private final Search search;
+    private final TranspositionTable table;
+    private final ChessGame game;
+    private final ChessBoard board;
+    private final int id;
+
+    private final MovePicker[] pickers = new MovePicker[Search.MaxPly];
+    private final MoveList[] quietsTried = new MoveList[Search.MaxPly];
+    private final int[][] killers = new int[Search.MaxPly][2];
+    // quiet move scores and countermoves, indexed by MovePicker.historyIndex
+    private final int[] history = new int[2 * 6 * ChessBoard.SquareCount];
+    private final int[] counterMoves = new int[2 * 6 * ChessBoard.SquareCount];
+    // the history index of the move played at each ply, for finding countermoves
+    private final int[] playedIndex = new int[Search.MaxPly];
+    private final int[][] principalVariation = new int[Search.MaxPly][Search.MaxPly];
+    private final int[] principalVariationLength = new int[Search.MaxPly];
+
+    private long uncountedNodes;
+    private int completedDepth;
+    private boolean aborted;
+
+    Searcher(Search search, TranspositionTable table, ChessGame game, int id)
+    {
+        this.search = search;
+        this.table = table;
+        this.game = game;
+        this.board = game.getBoard();
+        this.id = id;
+        for(int ply = 0; ply < Search.MaxPly; ply++)
+        {
+            pickers[ply] = new MovePicker(id);
+            quietsTried[ply] = new MoveList();
+        }
+    }
+
+    /**
+     * Deepens the search one ply at a time until a limit stops it
+     *
+     * @param maxDepth the deepest iteration to run
+     * @return the result of the deepest iteration that finished
+     */
+    SearchResult iterate(int maxDepth)
+    {
+        MoveList rootMoves = new MoveList();
+        game.validMoves(game.getTeamTurn(), rootMoves);
+        if(rootMoves.isEmpty())
+        {
+            int score = game.isInCheck(game.getTeamTurn()) ? -Search.Mate : 0;
+            return new SearchResult(null, score, 0, 0, List.of());
+        }
+
+        // if even the first iteration is cancelled, any legal move beats no move
+        int bestMove = rootMoves.get(0);
+        int bestScore = 0;
+        List<ChessMove> line = List.of(PackedMove.unpack(bestMove));
+
+        for(int depth = 1 + (id & 1); depth <= maxDepth; depth++)
+        {
+            int score = aspirationSearch(depth, bestScore);
+            if(aborted)
+            {
+                break;
+            }
+
+            completedDepth = depth;
+            bestScore = score;
+            bestMove = principalVariation[0][0];
+            line = principalVariation();
+
+            // a mate the search can see in full will not change with more depth
+            if(Search.isMateScore(score) && Search.Mate - Math.abs(score) <= depth)
+            {
+                break;
+            }
+        }
+
+        search.shouldStop(uncountedNodes);
+        uncountedNodes = 0;
+        return new SearchResult(PackedMove.unpack(bestMove), bestScore, completedDepth, search.nodes(), line);
+    }
+
+    private int aspirationSearch(int depth, int previousScore)
+    {
+        int window = AspirationWindow;
+        int alpha = -Search.Infinity;
+        int beta = Search.Infinity;
+        if(depth >= AspirationMinDepth && !Search.isMateScore(previousScore))
+        {
+            alpha = previousScore - window;
+            beta = previousScore + window;
+        }
+
+        while(true)
+        {
+            int score = negamax(depth, 0, alpha, beta);
+            if(aborted)
+            {
+                return score;
+            }
+
+            if(score <= alpha)
+            {
+                alpha = Math.max(score - window, -Search.Infinity);
+            }
+            else if(score >= beta)
+            {
+                beta = Math.min(score + window, Search.Infinity);
+            }
+            else
+            {
+                return score;
+            }
+            window *= 2;
+        }
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta)
+    {
+        principalVariationLength[ply] = ply;
+        if(++uncountedNodes == CheckInterval)
+        {
+            checkLimits();
+        }
+        if(aborted)
+        {
+            return 0;
+        }
+
+        long key = game.zobristKey();
+        if(ply > 0)
+        {
+            if(isDraw())
+            {
+                return 0;
+            }
+
+            // no line from here can do better than mating at once, or worse than being mated at once
+            alpha = Math.max(alpha, -Search.Mate + ply);
+            beta = Math.min(beta, Search.Mate - ply - 1);
+            if(alpha >= beta)
+            {
+                return alpha;
+            }
+
+            Tablebases tablebases = game.getTablebases();
+            if(tablebases != null)
+            {
+                int value = tablebases.probe(game);
+                if(value != Tablebases.Miss)
+                {
+                    return tablebaseScore(value, ply);
+                }
+            }
+        }
+        if(depth <= 0)
+        {
+            return quiesce(ply, alpha, beta);
+        }
+        if(ply == Search.MaxPly - 1)
+        {
+            return Evaluator.evaluate(game);
+        }
+
+        int tableMove = PackedMove.None;
+        long entry = table.probe(key);
+        if(entry != TranspositionTable.Miss)
+        {
+            tableMove = TranspositionTable.move(entry);
+            // cutting a principal-variation node short would cut the line short too
+            boolean principalNode = beta - alpha > 1;
+            if(!principalNode && TranspositionTable.depth(entry) >= depth)
+            {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                switch(TranspositionTable.bound(entry))
+                {
+                    case EXACT ->
+                    {
+                        return score;
+                    }
+                    case LOWER ->
+                    {
+                        if(score >= beta)
+                        {
+                            return score;
+                        }
+                    }
+                    case UPPER ->
+                    {
+                        if(score <= alpha)
+                        {
+                            return score;
+                        }
+                    }
+                }
+            }
+        }
+
+        MovePicker picker = pickers[ply];
+        int counterMove = ply == 0 ? PackedMove.None : counterMoves[playedIndex[ply - 1]];
+        picker.reset(game, tableMove, killers[ply][0], killers[ply][1], counterMove, history);
+        MoveList quiets = quietsTried[ply];
+        quiets.clear();
+
+        boolean pruneLosingCaptures = beta - alpha == 1 && depth <= SeePruningDepth
+                && !game.isInCheck(game.getTeamTurn());
+
+        int originalAlpha = alpha;
+        int bestScore = -Search.Infinity;
+        int bestMove = PackedMove.None;
+        int played = 0;
+        int move;
+        while((move = picker.next()) != PackedMove.None)
+        {
+            boolean quiet = picker.isQuiet(move);
+            if(pruneLosingCaptures && !quiet && played > 0
+                    && !StaticExchange.isAtLeast(game, move, -SeePruningMargin * depth))
+            {
+                continue;
+            }
+            playedIndex[ply] = MovePicker.historyIndex(board, move);
+            game.makeMove(move);
+            int score;
+            if(played++ == 0)
+            {
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            }
+            else
+            {
+                // with good ordering the first move is best, so only prove the rest are no better
+                score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha);
+                if(score > alpha && score < beta)
+                {
+                    score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+            game.unmakeMove();
+            if(aborted)
+            {
+                return 0;
+            }
+
+            if(score > bestScore)
+            {
+                bestScore = score;
+                bestMove = move;
+                if(score > alpha)
+                {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if(alpha >= beta)
+                    {
+                        if(quiet)
+                        {
+                            rewardQuiet(ply, depth, move, quiets);
+                        }
+                        break;
+                    }
+                }
+            }
+            if(quiet)
+            {
+                quiets.add(move);
+            }
+        }
+
+        if(played == 0)
+        {
+            return game.isInCheck(game.getTeamTurn()) ? -Search.Mate + ply : 0;
+        }
+
+        TranspositionTable.Bound bound = bestScore >= beta ? TranspositionTable.Bound.LOWER
+                : bestScore > originalAlpha ? TranspositionTable.Bound.EXACT
+                : TranspositionTable.Bound.UPPER;
+        table.store(key, bestMove, toTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    /**
+     * Searches only captures and promotions that do not lose material, letting the side to
+     * move stand pat on the static evaluation instead if that is better; in check, every
+     * evasion is searched, since standing pat is not an option
+     */
+    private int quiesce(int ply, int alpha, int beta)
+    {
+        principalVariationLength[ply] = ply;
+        if(++uncountedNodes == CheckInterval)
+        {
+            checkLimits();
+        }
+        if(aborted)
+        {
+            return 0;
+        }
+        if(ply == Search.MaxPly - 1)
+        {
+            return Evaluator.evaluate(game);
+        }
+
+        MovePicker picker = pickers[ply];
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        int bestScore;
+        if(inCheck)
+        {
+            picker.reset(game, PackedMove.None, PackedMove.None, PackedMove.None, PackedMove.None, history);
+            bestScore = -Search.Infinity;
+        }
+        else
+        {
+            bestScore = Evaluator.evaluate(game);
+            if(bestScore >= beta)
+            {
+                return bestScore;
+            }
+            alpha = Math.max(alpha, bestScore);
+            picker.resetNoisy(game);
+        }
+
+        int played = 0;
+        int move;
+        while((move = picker.next()) != PackedMove.None)
+        {
+            played++;
+            game.makeMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            game.unmakeMove();
+            if(aborted)
+            {
+                return 0;
+            }
+
+            if(score > bestScore)
+            {
+                bestScore = score;
+                if(score > alpha)
+                {
+                    alpha = score;
+                    if(alpha >= beta)
+                    {
+                        break;
+                    }
+                }
+            }
+        }
+
+        if(inCheck && played == 0)
+        {
+            return -Search.Mate + ply;
+        }
+        return bestScore;
+    }
+
+    private void checkLimits()
+    {
+        // the main thread's first iteration always finishes unless the search is cancelled, so there is a move to give
+        if(search.shouldStop(uncountedNodes) && (completedDepth > 0 || id != 0 || search.isCancelled()))
+        {
+            aborted = true;
+        }
+        uncountedNodes = 0;
+    }
+
+    /**
+     * @return whether the position repeats one earlier in the line or in the moves played
+     * to reach the root, or the fifty-move rule has run out
+     */
+    private boolean isDraw()
+    {
+        return game.getHalfmoveClock() >= 100 || game.isRepetition();
+    }
+
+    /**
+     * Remembers a quiet move that caused a cutoff: as a killer at its ply, as the answer to
+     * the opponent's last move, and in the history scores, where the quiet moves tried
+     * before it lose what it gains
+     */
+    private void rewardQuiet(int ply, int depth, int move, MoveList triedBefore)
+    {
+        if(killers[ply][0] != move)
+        {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        if(ply > 0)
+        {
+            counterMoves[playedIndex[ply - 1]] = move;
+        }
+
+        int bonus = Math.min(depth * depth, HistoryLimit);
+        updateHistory(MovePicker.historyIndex(board, move), bonus);
+        for(int i = 0; i < triedBefore.size(); i++)
+        {
+            updateHistory(MovePicker.historyIndex(board, triedBefore.get(i)), -bonus);
+        }
+    }
+
+    private void updateHistory(int index, int bonus)
+    {
+        history[index] += bonus - history[index] * Math.abs(bonus) / HistoryLimit;
+    }
+
+    private void updatePrincipalVariation(int ply, int move)
+    {
+        principalVariation[ply][ply] = move;
+        int childLength = principalVariationLength[ply + 1];
+        System.arraycopy(principalVariation[ply + 1], ply + 1, principalVariation[ply], ply + 1, childLength - ply - 1);
+        principalVariationLength[ply] = Math.max(childLength, ply + 1);
+    }
+
+    private List<ChessMove> principalVariation()
+    {
+        List<ChessMove> line = new ArrayList<>(principalVariationLength[0]);
+        for(int i = 0; i < principalVariationLength[0]; i++)
+        {
+            line.add(PackedMove.unpack(principalVariation[0][i]));
+        }
+        return line;
+    }
+
+    /**
+     * @return a tablebase value as a score at a ply; a mate too far off to count in plies
+     * from the root is scored as the furthest mate that can
+     */
+    private static int tablebaseScore(int value, int ply)
+    {
+        int mate = Search.Mate - Math.min(ply + Tablebase.plies(value), Search.MaxPly);
+        return Tablebase.isWin(value) ? mate : Tablebase.isLoss(value) ? -mate : 0;
+    }
+
+    /**
+     * Mate scores count plies from the root; the table stores them counted from the
+     * position itself, so they stay right when the position is reached at another ply
+     */
+    private static int toTable(int score, int ply)
+    {
+        if(Search.isMateScore(score))
+        {
+            return score > 0 ? score + ply : score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply)
+    {
+        if(Search.isMateScore(score))
+        {
+            return score > 0 ? score - ply : score + ply;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,131 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.PackedMove;
+
+/**
+ * Static exchange evaluation: the material a capture wins or loses once every
+ * piece that attacks the target square has had the chance to recapture on it,
+ * without playing any moves.
+ * <p>
+ * Each side recaptures with its least valuable attacker and may stop whenever
+ * recapturing would lose material. Attackers are found with
+ * {@link ChessBoard#getAttackers} against an occupancy that loses each piece as
+ * it captures, which uncovers the sliders lined up behind it. Pins are ignored,
+ * as usual for this kind of estimate.
+ */
+public final class StaticExchange
+{
+    // the least valuable attackers go first
+    private static final ChessPiece.PieceType[] AttackerOrder = {
+            ChessPiece.PieceType.PAWN,
+            ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.KING
+    };
+
+    // a king may only capture last, which pricing it above everything else makes it do
+    private static final int KingValue = 20_000;
+
+    private StaticExchange()
+    {
+    }
+
+    /**
+     * Determines whether a move's static exchange evaluation reaches a threshold, the
+     * way the search asks; it stops as soon as the answer is known and allocates nothing
+     *
+     * @param game      the game, at the position the move is made from
+     * @param move      a legal move, in {@link PackedMove} form
+     * @param threshold the least material the move must win, in centipawns
+     * @return whether the move wins at least {@code threshold} after the best sequence of
+     * recaptures on its target square
+     */
+    public static boolean isAtLeast(ChessGame game, int move, int threshold)
+    {
+        ChessBoard board = game.getBoard();
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece moving = board.getPiece(from);
+        ChessPiece target = board.getPiece(to);
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+
+        long occupied = board.getOccupied() ^ (1L << from);
+        int swap = -threshold;
+        if(target != null)
+        {
+            swap += Evaluator.value(target.getPieceType());
+        }
+        else if(moving.getPieceType() == ChessPiece.PieceType.PAWN && to == game.getEnPassantSquare())
+        {
+            swap += Evaluator.value(ChessPiece.PieceType.PAWN);
+            occupied ^= 1L << (to + (moving.getTeamColor() == ChessGame.TeamColor.WHITE ? -8 : 8));
+        }
+        int onSquare = value(moving.getPieceType());
+        if(promotion != null)
+        {
+            swap += Evaluator.value(promotion) - Evaluator.value(ChessPiece.PieceType.PAWN);
+            onSquare = Evaluator.value(promotion);
+        }
+
+        // even keeping the whole capture falls short, or even losing the capturer does not
+        if(swap < 0)
+        {
+            return false;
+        }
+        swap = onSquare - swap;
+        if(swap <= 0)
+        {
+            return true;
+        }
+
+        // "reaches" flips with every recapture that the side making it can afford
+        ChessGame.TeamColor side = moving.getTeamColor();
+        boolean reaches = true;
+        while(true)
+        {
+            side = side.opponent();
+            long attackers = board.getAttackers(to, occupied, side) & occupied;
+            if(attackers == 0)
+            {
+                break;
+            }
+            reaches = !reaches;
+
+            ChessPiece.PieceType attacker = ChessPiece.PieceType.KING;
+            long attackerBit = 0;
+            for(ChessPiece.PieceType type : AttackerOrder)
+            {
+                long ofType = attackers & board.getPieces(side, type);
+                if(ofType != 0)
+                {
+                    attacker = type;
+                    attackerBit = ofType & -ofType;
+                    break;
+                }
+            }
+
+            if(attacker == ChessPiece.PieceType.KING)
+            {
+                // the king can only recapture if nothing can take it back
+                return (board.getAttackers(to, occupied, side.opponent()) & occupied) != 0 ? !reaches : reaches;
+            }
+            swap = value(attacker) - swap;
+            if(swap < (reaches ? 1 : 0))
+            {
+                break;
+            }
+            occupied ^= attackerBit;
+        }
+        return reaches;
+    }
+
+    private static int value(ChessPiece.PieceType type)
+    {
+        return type == ChessPiece.PieceType.KING ? KingValue : Evaluator.value(type);
+    }
+}
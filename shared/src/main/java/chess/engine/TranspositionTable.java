@@ -0,0 +1,297 @@
+package chess.engine;
+
+import chess.PackedMove;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table of search results, keyed by a position's 64-bit Zobrist
+ * key, that any number of threads can probe and store into without locking.
+ * <p>
+ * Entries live in one {@code long[]}, two longs per entry: the entry's data,
+ * packed by {@link #pack}, and the key XORed with that data. A reader accepts an
+ * entry only if its two halves XOR back to the key it is looking for, so an
+ * entry torn by two threads writing it at once, or overwritten by another
+ * position between the two reads, reads as a miss rather than as a wrong
+ * result. A lost or rejected entry only costs the search some work, which is
+ * far cheaper than a lock on every probe.
+ * <p>
+ * Entries are grouped in buckets of {@link #BucketSize}, one 64-byte cache line
+ * each, and the low bits of the key pick the bucket. When a bucket is full the
+ * {@link Replacement} policy picks which entry a new one overwrites.
+ * <p>
+ * Packed entry data: bits 0-15 hold the best move, bits 16-31 the score as a
+ * signed short, bits 32-39 the depth as a signed byte, bits 40-41 the
+ * {@link Bound} and bits 42-47 the generation it was stored in. A bound is
+ * never zero, so a data word of zero is never a stored entry.
+ */
+public final class TranspositionTable
+{
+    /**
+     * Entries per bucket; four entries of two longs fill a 64-byte cache line
+     */
+    public static final int BucketSize = 4;
+
+    /**
+     * What {@link #probe} returns when the table holds nothing for a key
+     */
+    public static final long Miss = 0;
+
+    private static final int BytesPerEntry = 2 * Long.BYTES;
+    private static final int GenerationCount = 64;
+
+    private final long[] slots;
+    private final long bucketMask;
+    private final Replacement replacement;
+    private volatile int generation;
+
+    /**
+     * How a stored score relates to the position's true score
+     */
+    public enum Bound
+    {
+        /**
+         * The true score is at most the stored score; the search failed low
+         */
+        UPPER,
+        /**
+         * The true score is at least the stored score; the search failed high
+         */
+        LOWER,
+        /**
+         * The stored score is the true score
+         */
+        EXACT;
+
+        private static final Bound[] Values = values();
+    }
+
+    /**
+     * How to pick the entry a new entry overwrites when its bucket is full
+     */
+    public enum Replacement
+    {
+        /**
+         * Overwrite the shallowest entry, keeping the most expensive results no matter how old
+         */
+        DEPTH_PREFERRED
+        {
+            @Override
+            int worth(int depth, int age)
+            {
+                return depth;
+            }
+        },
+        /**
+         * Overwrite the shallowest entry, counting entries from earlier searches as
+         * shallower the older they are, so stale results give way to current ones
+         */
+        AGED
+        {
+            @Override
+            int worth(int depth, int age)
+            {
+                return depth - 8 * age;
+            }
+        };
+
+        /**
+         * @param depth the entry's depth
+         * @param age   how many searches ago the entry was stored
+         * @return how much keeping the entry is worth; the least worthy entry is overwritten
+         */
+        abstract int worth(int depth, int age);
+    }
+
+    /**
+     * Creates a table with the {@link Replacement#AGED} policy
+     *
+     * @param megabytes the most memory the table may use
+     */
+    public TranspositionTable(int megabytes)
+    {
+        this(megabytes, Replacement.AGED);
+    }
+
+    /**
+     * @param megabytes   the most memory the table may use; the table takes the largest
+     *                    power-of-two number of buckets that fits
+     * @param replacement how to pick the entry to overwrite in a full bucket
+     */
+    public TranspositionTable(int megabytes, Replacement replacement)
+    {
+        if(megabytes < 1)
+        {
+            throw new IllegalArgumentException("a transposition table needs at least 1 MB");
+        }
+        long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / (BucketSize * BytesPerEntry));
+        // a Java array holds fewer than 2^31 longs
+        buckets = Math.min(buckets, 1L << 27);
+        slots = new long[(int) (buckets * BucketSize * 2)];
+        bucketMask = buckets - 1;
+        this.replacement = replacement;
+    }
+
+    /**
+     * @return the number of entries the table can hold
+     */
+    public long capacity()
+    {
+        return slots.length / 2;
+    }
+
+    /**
+     * Marks the start of a new search, so the {@link Replacement#AGED} policy can tell
+     * the entries this search stores from older ones
+     */
+    public void newSearch()
+    {
+        generation = (generation + 1) % GenerationCount;
+    }
+
+    /**
+     * Empties the table; not safe to call while other threads are using it
+     */
+    public void clear()
+    {
+        Arrays.fill(slots, 0);
+        generation = 0;
+    }
+
+    /**
+     * Looks up the entry for a position
+     *
+     * @param key the position's Zobrist key
+     * @return the entry's packed data, or {@link #Miss}
+     */
+    public long probe(long key)
+    {
+        int first = bucketStart(key);
+        for(int slot = first; slot < first + 2 * BucketSize; slot += 2)
+        {
+            long data = slots[slot + 1];
+            if(data != Miss && (slots[slot] ^ data) == key)
+            {
+                return data;
+            }
+        }
+        return Miss;
+    }
+
+    /**
+     * Stores the result of searching a position, overwriting its old entry or, if it has
+     * none, the least worthy entry in its bucket
+     *
+     * @param key   the position's Zobrist key
+     * @param move  the best move found, in {@link PackedMove} form, or {@link PackedMove#None}
+     * @param score the score, which must fit in a short
+     * @param depth the depth searched, which must fit in a byte
+     * @param bound how the score relates to the true score
+     */
+    public void store(long key, int move, int score, int depth, Bound bound)
+    {
+        int currentGeneration = generation;
+        int first = bucketStart(key);
+        int target = first;
+        int targetWorth = Integer.MAX_VALUE;
+        for(int slot = first; slot < first + 2 * BucketSize; slot += 2)
+        {
+            long data = slots[slot + 1];
+            if(data == Miss || (slots[slot] ^ data) == key)
+            {
+                // an entry for the same position keeps its move if the new result has none
+                if(data != Miss && move == PackedMove.None)
+                {
+                    move = move(data);
+                }
+                target = slot;
+                break;
+            }
+
+            int age = (currentGeneration - generation(data) + GenerationCount) % GenerationCount;
+            int worth = replacement.worth(depth(data), age);
+            if(worth < targetWorth)
+            {
+                target = slot;
+                targetWorth = worth;
+            }
+        }
+
+        long data = pack(move, score, depth, bound, currentGeneration);
+        slots[target] = key ^ data;
+        slots[target + 1] = data;
+    }
+
+    /**
+     * @return roughly how full the table is, in entries per thousand, counting only entries
+     * stored since the last {@link #newSearch()}
+     */
+    public int hashfull()
+    {
+        int sampled = Math.min(1000, slots.length / 2);
+        int current = 0;
+        for(int i = 0; i < sampled; i++)
+        {
+            long data = slots[2 * i + 1];
+            if(data != Miss && generation(data) == generation)
+            {
+                current++;
+            }
+        }
+        return current * 1000 / sampled;
+    }
+
+    private int bucketStart(long key)
+    {
+        return (int) (key & bucketMask) * BucketSize * 2;
+    }
+
+    /**
+     * Packs an entry's fields into its data word
+     */
+    static long pack(int move, int score, int depth, Bound bound, int generation)
+    {
+        return (move & 0xFFFFL)
+                | (score & 0xFFFFL) << 16
+                | (depth & 0xFFL) << 32
+                | (long) (bound.ordinal() + 1) << 40
+                | (long) generation << 42;
+    }
+
+    /**
+     * @return the best move of an entry, in {@link PackedMove} form
+     */
+    public static int move(long entry)
+    {
+        return (int) (entry & 0xFFFF);
+    }
+
+    /**
+     * @return the score of an entry
+     */
+    public static int score(long entry)
+    {
+        return (short) (entry >>> 16);
+    }
+
+    /**
+     * @return the depth an entry was searched to
+     */
+    public static int depth(long entry)
+    {
+        return (byte) (entry >>> 32);
+    }
+
+    /**
+     * @return how an entry's score relates to the true score
+     */
+    public static Bound bound(long entry)
+    {
+        return Bound.Values[(int) ((entry >>> 40) & 0x3) - 1];
+    }
+
+    private static int generation(long entry)
+    {
+        return (int) ((entry >>> 42) & 0x3F);
+    }
+}
@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Asserts how many bytes a call allocates on the heap, using the per-thread allocation
+ * counter of {@link com.sun.management.ThreadMXBean}.
+ * <p>
+ * The call is run enough times first for the JIT to compile it, since interpreted code
+ * allocates things (boxes, iterators) that compiled code optimizes away. It is then
+ * measured over many runs and the average is compared with the budget, which hides
+ * the few bytes the counter itself can be off by.
+ */
+public final class AllocationBudget
+{
+    private static final int WarmupRuns = 20_000;
+    private static final int MeasuredRuns = 100_000;
+
+    private static final com.sun.management.ThreadMXBean Threads = threadBean();
+
+    private AllocationBudget()
+    {
+    }
+
+    /**
+     * Something to measure; return a value that depends on the work so the JIT cannot drop it
+     */
+    @FunctionalInterface
+    public interface Call
+    {
+        Object run();
+    }
+
+    /**
+     * Fails unless a call allocates no more than a number of bytes each time, on average
+     *
+     * @param description what the call is, for the failure message
+     * @param bytesPerCall the most bytes a call may allocate
+     * @param call the call to measure
+     */
+    public static void assertAllocatesAtMost(String description, long bytesPerCall, Call call)
+    {
+        Assumptions.assumeTrue(Threads != null && Threads.isThreadAllocatedMemorySupported(),
+                "this JVM cannot count allocated bytes per thread");
+        Threads.setThreadAllocatedMemoryEnabled(true);
+
+        int sink = 0;
+        for(int i = 0; i < WarmupRuns; i++)
+        {
+            sink += System.identityHashCode(call.run()) & 1;
+        }
+
+        long before = Threads.getCurrentThreadAllocatedBytes();
+        for(int i = 0; i < MeasuredRuns; i++)
+        {
+            sink += System.identityHashCode(call.run()) & 1;
+        }
+        long allocated = Threads.getCurrentThreadAllocatedBytes() - before;
+
+        double average = (double) allocated / MeasuredRuns;
+        Assertions.assertTrue(average <= bytesPerCall, String.format(
+                "%s allocated %.1f bytes per call, over its budget of %d (sink %d)",
+                description, average, bytesPerCall, sink));
+    }
+
+    /**
+     * Fails unless a call allocates nothing once compiled
+     */
+    public static void assertAllocationFree(String description, Call call)
+    {
+        // a byte of slack per call still catches any object, which is at least 16 bytes
+        assertAllocatesAtMost(description, 1, call);
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean()
+    {
+        return ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean ? bean : null;
+    }
+}
@@ -0,0 +1,107 @@
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+/**
+ * Allocation budgets for the calls a search makes millions of times a second
+ */
+public class AllocationTests
+{
+    private final ChessGame game = Perft.position("kiwipete").newGame();
+    private final ChessBoard board = game.getBoard();
+    private final MoveList moves = new MoveList();
+
+    @Test
+    public void getPiece_AllocationFreeTest()
+    {
+        ChessPosition position = ChessPosition.of(1, 5);
+        AllocationBudget.assertAllocationFree("ChessBoard.getPiece(ChessPosition)", () -> board.getPiece(position));
+        AllocationBudget.assertAllocationFree("ChessBoard.getPiece(int)", () -> board.getPiece(4));
+    }
+
+    @Test
+    public void pieceMoves_AllocationFreeTest()
+    {
+        for(int square = 0; square < ChessBoard.SquareCount; square++)
+        {
+            ChessPiece piece = board.getPiece(square);
+            if(piece != null)
+            {
+                int from = square;
+                AllocationBudget.assertAllocationFree(piece + " pieceMoves into a MoveList", () ->
+                {
+                    moves.clear();
+                    piece.pieceMoves(board, from, moves);
+                    return moves;
+                });
+            }
+        }
+    }
+
+    @Test
+    public void pieceMoves_CollectionWithinBudgetTest()
+    {
+        // the collection form pays only for its list: the header, the backing array and a
+        // reference per move, with the moves themselves shared
+        ChessPosition queen = ChessPosition.of(3, 6);
+        ChessPiece piece = board.getPiece(queen);
+        AllocationBudget.assertAllocatesAtMost("queen pieceMoves as a collection", 256,
+                () -> piece.pieceMoves(board, queen));
+    }
+
+    @Test
+    public void checkDetection_AllocationFreeTest()
+    {
+        AllocationBudget.assertAllocationFree("ChessGame.isInCheck", () -> game.isInCheck(ChessGame.TeamColor.WHITE));
+        AllocationBudget.assertAllocationFree("ChessBoard.isSquareAttacked",
+                () -> board.isSquareAttacked(ChessPosition.of(4, 4), ChessGame.TeamColor.BLACK));
+        AllocationBudget.assertAllocationFree("ChessGame.isInStalemate",
+                () -> game.isInStalemate(ChessGame.TeamColor.WHITE));
+
+        // a back-rank mate, and the same check with a bishop that can block it, so the
+        // search for a valid move has to get past the king to the other pieces
+        ChessGame mated = Fen.parse("6k1/8/8/8/8/8/5PPP/1r4K1 w - - 0 1");
+        ChessGame blockable = Fen.parse("6k1/8/8/8/8/4B3/5PPP/1r4K1 w - - 0 1");
+        Assertions.assertTrue(mated.isInCheckmate(ChessGame.TeamColor.WHITE));
+        Assertions.assertFalse(blockable.isInCheckmate(ChessGame.TeamColor.WHITE));
+        AllocationBudget.assertAllocationFree("ChessGame.isInCheckmate when mated",
+                () -> mated.isInCheckmate(ChessGame.TeamColor.WHITE));
+        AllocationBudget.assertAllocationFree("ChessGame.isInCheckmate with a block",
+                () -> blockable.isInCheckmate(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    public void legalMoves_AllocationFreeTest()
+    {
+        AllocationBudget.assertAllocationFree("ChessGame.validMoves(team, MoveList)", () ->
+        {
+            moves.clear();
+            game.validMoves(ChessGame.TeamColor.WHITE, moves);
+            return moves;
+        });
+    }
+
+    @Test
+    public void makeUnmake_AllocationFreeTest()
+    {
+        moves.clear();
+        game.validMoves(ChessGame.TeamColor.WHITE, moves);
+        AllocationBudget.assertAllocationFree("ChessGame.makeMove/unmakeMove", () ->
+        {
+            for(int i = 0; i < moves.size(); i++)
+            {
+                game.makeMove(moves.get(i));
+                game.unmakeMove();
+            }
+            return game;
+        });
+    }
+
+    @Test
+    public void allocationBudget_CatchesGarbageTest()
+    {
+        Assertions.assertThrows(AssertionFailedError.class, () ->
+                AllocationBudget.assertAllocationFree("a new list per call", () -> new MoveList(4)));
+    }
+}
@@ -0,0 +1,39 @@
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ChessPieceExtendedTests
+{
+    @Test
+    public void of_ReturnsSharedInstanceTest()
+    {
+        ChessPiece x = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
+
+        Assertions.assertSame(x, ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        Assertions.assertSame(x, ChessPiece.of(x.getIndex()));
+        Assertions.assertEquals(new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT), x);
+    }
+
+    @Test
+    public void shortCode_MatchesColorAndTypeTest()
+    {
+        Assertions.assertEquals("G", ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING).shortCode());
+        Assertions.assertEquals("k", ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT).shortCode());
+        Assertions.assertEquals("p",
+                new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN).shortCode());
+    }
+
+    @Test
+    public void addPiece_StoresCanonicalPieceTest()
+    {
+        ChessBoard board = new ChessBoard();
+        ChessPosition position = ChessPosition.of(4, 4);
+        board.addPiece(position, new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+
+        Assertions.assertSame(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN),
+                              board.getPiece(position));
+    }
+}
@@ -1,3 +1,4 @@
+import chess.ChessMove;
 import chess.ChessPosition;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -59,4 +60,24 @@ public class ChessPositionExtendedTests
 
         Assertions.assertEquals(a,b);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void of_ReturnsSharedInstanceTest()
+    {
+        ChessPosition x = ChessPosition.of(5,2);
+
+        Assertions.assertSame(x, ChessPosition.of(5,2));
+        Assertions.assertSame(x, ChessPosition.of(x.getIndex()));
+        Assertions.assertEquals(new ChessPosition(5,2), x);
+    }
+
+    @Test
+    public void getNeighbor_EdgeTest()
+    {
+        ChessPosition corner = ChessPosition.of(1,1);
+
+        Assertions.assertNull(corner.getNeighbor(ChessMove.Direction.SOUTH));
+        Assertions.assertNull(corner.getNeighbor(ChessMove.Direction.NORTHWEST));
+        Assertions.assertSame(ChessPosition.of(2,2), corner.getNeighbor(ChessMove.Direction.NORTHEAST));
+    }
+}
@@ -0,0 +1,108 @@
+import chess.*;
+import chess.engine.Evaluator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+import java.util.Random;
+
+public class EvaluationTests
+{
+    @Test
+    public void startingPosition_IsEvenTest()
+    {
+        Assertions.assertEquals(0, new ChessGame().getBoard().pieceSquareScore());
+        Assertions.assertEquals(0, Evaluator.evaluate(new ChessGame()));
+    }
+
+    @Test
+    public void colorFlippedBoard_NegatesScoreTest()
+    {
+        for(Perft.Position position : Perft.Positions)
+        {
+            ChessGame game = position.newGame();
+            ChessGame flipped = new ChessGame();
+            flipped.setBoard(flip(game.getBoard()));
+            flipped.setTeamTurn(game.getTeamTurn().opponent());
+
+            Assertions.assertEquals(-game.getBoard().pieceSquareScore(), flipped.getBoard().pieceSquareScore(),
+                    position.name());
+            Assertions.assertEquals(Evaluator.evaluate(game), Evaluator.evaluate(flipped), position.name());
+        }
+    }
+
+    @Test
+    public void incrementalScore_MatchesRebuiltBoardTest()
+    {
+        Random random = new Random(18);
+        MoveList moves = new MoveList();
+        for(Perft.Position position : Perft.Positions)
+        {
+            ChessGame game = position.newGame();
+            int startScore = game.getBoard().pieceSquareScore();
+            int played = 0;
+            for(; played < 60; played++)
+            {
+                moves.clear();
+                game.validMoves(game.getTeamTurn(), moves);
+                if(moves.isEmpty())
+                {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+                Assertions.assertEquals(rebuild(game.getBoard()).pieceSquareScore(), game.getBoard().pieceSquareScore());
+            }
+            for(int i = 0; i < played; i++)
+            {
+                game.unmakeMove();
+            }
+            Assertions.assertEquals(startScore, game.getBoard().pieceSquareScore());
+        }
+    }
+
+    @Test
+    public void endgame_KingBelongsInCenterTest()
+    {
+        ChessBoard centered = TestUtilities.loadBoard("""
+                |k| | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | |K| | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """);
+        Assertions.assertTrue(centered.pieceSquareScore() > 0);
+
+        // with every piece still on, the same king walk is a liability
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        board.movePiece(ChessPosition.of(1, 5), ChessPosition.of(4, 4));
+        Assertions.assertTrue(board.pieceSquareScore() < 0);
+    }
+
+    private static ChessBoard flip(ChessBoard board)
+    {
+        ChessBoard flipped = new ChessBoard();
+        for(int square = 0; square < ChessBoard.SquareCount; square++)
+        {
+            ChessPiece piece = board.getPiece(square);
+            if(piece != null)
+            {
+                flipped.addPiece(square ^ 56, ChessPiece.of(piece.getTeamColor().opponent(), piece.getPieceType()));
+            }
+        }
+        return flipped;
+    }
+
+    private static ChessBoard rebuild(ChessBoard board)
+    {
+        ChessBoard rebuilt = new ChessBoard();
+        for(int square = 0; square < ChessBoard.SquareCount; square++)
+        {
+            rebuilt.addPiece(square, board.getPiece(square));
+        }
+        return rebuilt;
+    }
+}
@@ -0,0 +1,133 @@
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Fen;
+import chess.MoveList;
+import chess.Perft;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+public class FenTests
+{
+    @Test
+    public void parse_StartingPositionTest()
+    {
+        ChessGame game = Fen.parse(Fen.StartingPosition);
+        Assertions.assertEquals(new ChessGame(), game);
+        Assertions.assertEquals(new ChessGame().zobristKey(), game.zobristKey());
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        Assertions.assertEquals(1, game.getFullmoveNumber());
+        Assertions.assertEquals(Fen.StartingPosition, Fen.write(new ChessGame()));
+    }
+
+    @Test
+    public void parse_AllFieldsTest()
+    {
+        ChessGame game = Fen.parse("rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR w Kq d6 3 17");
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+        Assertions.assertEquals(ChessGame.WhiteKingside | ChessGame.BlackQueenside, game.getCastlingRights());
+        Assertions.assertEquals(5 * 8 + 3, game.getEnPassantSquare());
+        Assertions.assertEquals(3, game.getHalfmoveClock());
+        Assertions.assertEquals(17, game.getFullmoveNumber());
+        Assertions.assertEquals(ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN),
+                game.getBoard().getPiece(4 * 8 + 3));
+        Assertions.assertEquals(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT),
+                game.getBoard().getPiece(1));
+    }
+
+    @Test
+    public void parse_WithoutMoveCountersTest()
+    {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/8/4K2R b K -");
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        Assertions.assertEquals(ChessGame.WhiteKingside, game.getCastlingRights());
+        Assertions.assertEquals("4k3/8/8/8/8/8/8/4K2R b K - 0 1", Fen.write(game));
+    }
+
+    @Test
+    public void parse_DropsImpossibleCastlingRightsTest()
+    {
+        // the h1 rook is missing, so white cannot castle kingside whatever the record says
+        ChessGame game = Fen.parse("r3k2r/8/8/8/8/8/8/R3K3 w KQkq - 0 1");
+        Assertions.assertEquals(ChessGame.AllCastlingRights & ~ChessGame.WhiteKingside, game.getCastlingRights());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+            "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "rnbqkbnr/ppppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "rnbqkbnr/pppppppp/7/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KX - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e3 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - x 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 0",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 extra"
+    })
+    public void parse_RejectsInvalidTest(String fen)
+    {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Fen.parse(fen));
+    }
+
+    @Test
+    public void read_LeavesGameOnErrorTest()
+    {
+        ChessGame game = Perft.position("kiwipete").newGame();
+        ChessGame before = new ChessGame(game);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Fen.read("8/8/8 w - - 0 1", game));
+        Assertions.assertEquals(before, game);
+    }
+
+    @Test
+    public void write_RoundTripsPlayedGamesTest()
+    {
+        // every position reached in random games reads back as the same position
+        Random random = new Random(240);
+        StringBuilder fen = new StringBuilder();
+        for(Perft.Position position : Perft.Positions)
+        {
+            Assertions.assertEquals(position.fen(), Fen.write(position.newGame()));
+            for(int games = 0; games < 20; games++)
+            {
+                ChessGame game = position.newGame();
+                MoveList moves = new MoveList();
+                for(int ply = 0; ply < 60; ply++)
+                {
+                    moves.clear();
+                    game.validMoves(game.getTeamTurn(), moves);
+                    if(moves.isEmpty())
+                    {
+                        break;
+                    }
+                    game.makeMove(moves.get(random.nextInt(moves.size())));
+
+                    fen.setLength(0);
+                    Fen.write(game, fen);
+                    ChessGame read = Fen.parse(fen);
+                    Assertions.assertEquals(game, read, fen::toString);
+                    Assertions.assertEquals(game.zobristKey(), read.zobristKey(), fen::toString);
+                    Assertions.assertEquals(game.getHalfmoveClock(), read.getHalfmoveClock(), fen::toString);
+                    Assertions.assertEquals(game.getFullmoveNumber(), read.getFullmoveNumber(), fen::toString);
+                    Assertions.assertEquals(fen.toString(), Fen.write(read));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void writeBoard_PiecePlacementTest()
+    {
+        ChessBoard board = Fen.parse("8/8/3k4/8/8/4Q3/8/K7 b - - 0 1").getBoard();
+        StringBuilder placement = new StringBuilder();
+        Fen.writeBoard(board, placement);
+        Assertions.assertEquals("8/8/3k4/8/8/4Q3/8/K7", placement.toString());
+    }
+}
@@ -0,0 +1,135 @@
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+public class LegalMoveTests
+{
+    @Test
+    public void enPassant_DiscoveredCheckAlongRowTest()
+    {
+        // capturing en passant would empty the row between the white king and the black rook
+        ChessGame game = Fen.parse("4k3/8/8/K1pP3r/8/8/8/8 w - c6 0 2");
+        Assertions.assertEquals(PackedMove.None, Uci.decode(game, "d5c6"));
+    }
+
+    @Test
+    public void enPassant_CapturesCheckingPawnTest()
+    {
+        ChessGame game = Fen.parse("4k3/8/8/3pP3/4K3/8/8/8 w - d6 0 2");
+        Assertions.assertTrue(game.isInCheck(ChessGame.TeamColor.WHITE));
+        Assertions.assertNotEquals(PackedMove.None, Uci.decode(game, "e5d6"));
+    }
+
+    @Test
+    public void doubleCheck_OnlyKingMovesTest()
+    {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/3n4/5Q2/4K2r w - - 0 1");
+        MoveList moves = new MoveList();
+        game.validMoves(ChessGame.TeamColor.WHITE, moves);
+
+        Assertions.assertFalse(moves.isEmpty());
+        for(int i = 0; i < moves.size(); i++)
+        {
+            Assertions.assertEquals(ChessPosition.of(1, 5).getIndex(), PackedMove.from(moves.get(i)));
+        }
+    }
+
+    @Test
+    public void pinnedPiece_StaysOnPinLineTest()
+    {
+        ChessGame game = Fen.parse("4k3/8/8/4r3/8/4R3/8/4K3 w - - 0 1");
+        var validMoves = TestUtilities.loadMoves(ChessPosition.of(3, 5), new int[][]{{2, 5}, {4, 5}, {5, 5}});
+        TestUtilities.validateMoves(validMoves, new java.util.ArrayList<>(game.validMoves(ChessPosition.of(3, 5))));
+    }
+
+    @Test
+    public void noisyAndQuietMoves_PartitionValidMovesTest()
+    {
+        java.util.Random random = new java.util.Random(19);
+        MoveList all = new MoveList();
+        MoveList noisy = new MoveList();
+        MoveList quiet = new MoveList();
+        for(Perft.Position position : Perft.Positions)
+        {
+            ChessGame game = position.newGame();
+            for(int ply = 0; ply < 40; ply++)
+            {
+                all.clear();
+                noisy.clear();
+                quiet.clear();
+                game.validMoves(game.getTeamTurn(), all);
+                game.noisyMoves(noisy);
+                game.quietMoves(quiet);
+
+                Assertions.assertEquals(all.size(), noisy.size() + quiet.size(), position.name());
+                for(int i = 0; i < noisy.size(); i++)
+                {
+                    int move = noisy.get(i);
+                    Assertions.assertTrue(all.contains(move));
+                    Assertions.assertTrue(game.getBoard().getPiece(PackedMove.to(move)) != null
+                            || PackedMove.promotion(move) != null
+                            || PackedMove.to(move) == game.getEnPassantSquare());
+                }
+                for(int i = 0; i < quiet.size(); i++)
+                {
+                    int move = quiet.get(i);
+                    Assertions.assertTrue(all.contains(move));
+                    Assertions.assertNull(game.getBoard().getPiece(PackedMove.to(move)));
+                    Assertions.assertNull(PackedMove.promotion(move));
+                }
+
+                if(all.isEmpty())
+                {
+                    break;
+                }
+                game.makeMove(all.get(random.nextInt(all.size())));
+            }
+        }
+    }
+
+    @Test
+    public void checkmateAndStalemate_KnownPositionsTest()
+    {
+        ChessGame foolsMate = Fen.parse("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+        Assertions.assertTrue(foolsMate.isInCheckmate(ChessGame.TeamColor.WHITE));
+        Assertions.assertFalse(foolsMate.isInStalemate(ChessGame.TeamColor.WHITE));
+
+        ChessGame cornered = Fen.parse("k7/8/1Q6/8/8/8/8/7K b - - 0 1");
+        Assertions.assertTrue(cornered.isInStalemate(ChessGame.TeamColor.BLACK));
+        Assertions.assertFalse(cornered.isInCheckmate(ChessGame.TeamColor.BLACK));
+
+        // the king is boxed in and the pawn blocked, so only the en passant capture is left
+        ChessGame enPassantOnly = Fen.parse("7k/8/3p4/3Pp3/8/8/2q5/K7 w - e6 0 2");
+        Assertions.assertFalse(enPassantOnly.isInStalemate(ChessGame.TeamColor.WHITE));
+        Assertions.assertTrue(Fen.parse("7k/8/3p4/3Pp3/8/8/2q5/K7 w - - 0 2").isInStalemate(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    public void checkmateAndStalemate_AgreeWithValidMovesTest()
+    {
+        java.util.Random random = new java.util.Random(23);
+        MoveList moves = new MoveList();
+        for(Perft.Position position : Perft.Positions)
+        {
+            for(int games = 0; games < 20; games++)
+            {
+                ChessGame game = position.newGame();
+                for(int ply = 0; ply < 200; ply++)
+                {
+                    ChessGame.TeamColor turn = game.getTeamTurn();
+                    moves.clear();
+                    game.validMoves(turn, moves);
+                    boolean inCheck = game.isInCheck(turn);
+                    Assertions.assertEquals(inCheck && moves.isEmpty(), game.isInCheckmate(turn), position.name());
+                    Assertions.assertEquals(!inCheck && moves.isEmpty(), game.isInStalemate(turn), position.name());
+                    if(moves.isEmpty())
+                    {
+                        break;
+                    }
+                    game.makeMove(moves.get(random.nextInt(moves.size())));
+                }
+            }
+        }
+    }
+}
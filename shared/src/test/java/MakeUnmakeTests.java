@@ -0,0 +1,111 @@
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class MakeUnmakeTests
+{
+    @Test
+    public void unmakeMove_RestoresPositionTest()
+    {
+        String fen = "r3k2r/1Pp5/8/3P4/8/8/8/R3K2R b KQkq - 0 1";
+        ChessGame game = Fen.parse(fen);
+        ChessGame expected = Fen.parse(fen);
+        long key = game.zobristKey();
+
+        game.makeMove(Uci.decode(game, "c7c5"));  // double push, sets up en passant
+        game.makeMove(Uci.decode(game, "d5c6"));  // en passant capture
+        game.makeMove(Uci.decode(game, "e8g8"));  // castle kingside
+        game.makeMove(Uci.decode(game, "b7a8q")); // capture and promote
+        Assertions.assertEquals(0, game.getCastlingRights() & ChessGame.BlackQueenside);
+
+        for(int i = 0; i < 4; i++)
+        {
+            game.unmakeMove();
+        }
+
+        Assertions.assertEquals(expected, game);
+        Assertions.assertEquals(expected.getBoard(), game.getBoard());
+        Assertions.assertEquals(key, game.zobristKey());
+    }
+
+    @Test
+    public void randomGames_UnmakeToStartTest()
+    {
+        Random random = new Random(240);
+        MoveList moves = new MoveList();
+        for(int gameNumber = 0; gameNumber < 20; gameNumber++)
+        {
+            ChessGame game = new ChessGame();
+            long startKey = game.zobristKey();
+            int played = 0;
+            for(; played < 80; played++)
+            {
+                moves.clear();
+                long pieces = game.getBoard().getPieces(game.getTeamTurn());
+                while(pieces != 0)
+                {
+                    game.validMoves(Long.numberOfTrailingZeros(pieces), moves);
+                    pieces &= pieces - 1;
+                }
+                if(moves.isEmpty())
+                {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+            for(int i = 0; i < played; i++)
+            {
+                game.unmakeMove();
+            }
+
+            Assertions.assertEquals(new ChessGame(), game);
+            Assertions.assertEquals(startKey, game.zobristKey());
+        }
+    }
+
+    @Test
+    public void copyConstructor_SharesNoStateTest()
+    {
+        ChessGame game = new ChessGame();
+        ChessGame copy = new ChessGame(game);
+        copy.makeMove(PackedMove.encode(12, 28, null)); // e2-e4
+
+        Assertions.assertNotEquals(game, copy);
+        Assertions.assertEquals(new ChessGame(), game);
+        copy.unmakeMove();
+        Assertions.assertEquals(game, copy);
+        Assertions.assertEquals(game.zobristKey(), copy.zobristKey());
+    }
+
+    @Test
+    public void isRepetition_SinceLastIrreversibleMoveTest()
+    {
+        ChessGame game = new ChessGame();
+        for(String move : new String[]{"g1f3", "g8f6", "f3g1"})
+        {
+            game.makeMove(Uci.decode(game, move));
+            Assertions.assertFalse(game.isRepetition(), move);
+        }
+        game.makeMove(Uci.decode(game, "f6g8"));
+        Assertions.assertTrue(game.isRepetition());
+        game.unmakeMove();
+        Assertions.assertFalse(game.isRepetition());
+
+        // positions from before a pawn move are not compared, but the one right after it is
+        game.makeMove(Uci.decode(game, "e7e6"));
+        for(String move : new String[]{"g1f3", "f6g8", "f3g1"})
+        {
+            game.makeMove(Uci.decode(game, move));
+            Assertions.assertFalse(game.isRepetition(), move);
+        }
+        game.makeMove(Uci.decode(game, "g8f6"));
+        Assertions.assertTrue(game.isRepetition());
+
+        // a copy keeps the moves played, and setting a position forgets them
+        Assertions.assertTrue(new ChessGame(game).isRepetition());
+        Fen.read(Fen.write(game), game);
+        Assertions.assertFalse(game.isRepetition());
+    }
+}
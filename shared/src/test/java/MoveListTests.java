@@ -0,0 +1,54 @@
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+public class MoveListTests
+{
+    @Test
+    public void clear_ReusesListTest()
+    {
+        MoveList moves = new MoveList(1);
+        moves.add(1);
+        moves.add(2);
+        moves.add(3);
+        Assertions.assertEquals(3, moves.size());
+
+        moves.clear();
+        Assertions.assertTrue(moves.isEmpty());
+        moves.add(4);
+        Assertions.assertEquals(4, moves.get(0));
+    }
+
+    @Test
+    public void pieceMoves_MatchesCollectionApiTest()
+    {
+        ChessBoard board = TestUtilities.loadBoard("""
+                | | | | | | | | |
+                | | |P| | | |p| |
+                | | | | | |n| | |
+                | | |b|q| | | | |
+                | | | |Q| |N| | |
+                | |p| | | | | | |
+                | | | |P| | | | |
+                |R| | | |K| | | |
+                """);
+        MoveList moves = new MoveList();
+        for(int square = 0; square < 64; square++)
+        {
+            ChessPiece piece = board.getPiece(square);
+            if(piece != null)
+            {
+                moves.clear();
+                piece.pieceMoves(board, square, moves);
+                Assertions.assertEquals(new HashSet<>(piece.pieceMoves(board, ChessPosition.of(square))),
+                                        new HashSet<>(moves.toChessMoves()));
+                Assertions.assertEquals(new ArrayList<>(piece.pieceMoves(board, ChessPosition.of(square))).size(),
+                                        moves.size());
+            }
+        }
+    }
+}
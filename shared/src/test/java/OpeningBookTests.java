@@ -0,0 +1,262 @@
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.MoveList;
+import chess.PackedMove;
+import chess.engine.OpeningBook;
+import chess.engine.OpeningBookBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class OpeningBookTests
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    public void bestMove_MostPlayedFirstTest() throws Exception
+    {
+        OpeningBook book = build(1, "e2e4 e7e5 g1f3", "e2e4 c7c5", "d2d4 d7d5 1-0", "e2e4 e7e5 f1c4");
+
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(PackedMove.pack(move("e2e4")), book.bestMove(game));
+        List<OpeningBook.Choice> moves = book.moves(game);
+        Assertions.assertEquals(List.of(new OpeningBook.Choice(move("e2e4"), 3), new OpeningBook.Choice(move("d2d4"), 1)),
+                moves);
+
+        game.makeMove(move("e2e4"));
+        Assertions.assertEquals(PackedMove.pack(move("e7e5")), book.bestMove(game));
+        Assertions.assertEquals(2, book.moves(game).getFirst().weight());
+    }
+
+    @Test
+    public void bestMove_UnknownPositionTest() throws Exception
+    {
+        OpeningBook book = build(1, "e2e4 e7e5");
+
+        ChessGame game = new ChessGame();
+        game.makeMove(move("a2a3"));
+        Assertions.assertEquals(PackedMove.None, book.bestMove(game));
+        Assertions.assertEquals(PackedMove.None, book.pickMove(game, new Random(1)));
+        Assertions.assertTrue(book.moves(game).isEmpty());
+        Assertions.assertEquals(-1, book.find(game.zobristKey()));
+    }
+
+    @Test
+    public void write_MinWeightTest() throws Exception
+    {
+        OpeningBook book = build(2, "e2e4 e7e5", "e2e4 c7c5", "d2d4 d7d5");
+
+        // only 1.e4 was played twice
+        Assertions.assertEquals(1, book.size());
+        Assertions.assertEquals(List.of(new OpeningBook.Choice(move("e2e4"), 2)), book.moves(new ChessGame()));
+    }
+
+    @Test
+    public void pickMove_FollowsWeightsTest() throws Exception
+    {
+        List<String> games = new ArrayList<>();
+        for(int i = 0; i < 3; i++)
+        {
+            games.add("e2e4");
+        }
+        games.add("d2d4");
+        OpeningBook book = build(1, games.toArray(String[]::new));
+
+        ChessGame game = new ChessGame();
+        Random random = new Random(240);
+        int e4 = 0;
+        int draws = 4000;
+        for(int i = 0; i < draws; i++)
+        {
+            int picked = book.pickMove(game, random);
+            Assertions.assertTrue(picked == PackedMove.pack(move("e2e4")) || picked == PackedMove.pack(move("d2d4")));
+            if(picked == PackedMove.pack(move("e2e4")))
+            {
+                e4++;
+            }
+        }
+        Assertions.assertEquals(0.75, (double) e4 / draws, 0.03);
+    }
+
+    @Test
+    public void find_EveryEntryOfLargeBookTest() throws Exception
+    {
+        // random games give a book of tens of thousands of positions, each with known weights
+        SplittableRandom random = new SplittableRandom(240);
+        OpeningBookBuilder builder = new OpeningBookBuilder(16);
+        Map<Long, Map<Integer, Integer>> expected = new HashMap<>();
+        for(int i = 0; i < 3000; i++)
+        {
+            builder.addGame(randomGame(random, 16, expected));
+        }
+        Path path = directory.resolve("random.book");
+        int written = builder.write(path, 1);
+        OpeningBook book = OpeningBook.open(path);
+        Assertions.assertEquals(written, book.size());
+        Assertions.assertEquals(OpeningBook.HeaderBytes + (long) written * OpeningBook.EntryBytes, Files.size(path));
+
+        int entries = 0;
+        for(Map.Entry<Long, Map<Integer, Integer>> position : expected.entrySet())
+        {
+            int mostPlayed = position.getValue().values().stream().mapToInt(Integer::intValue).max().orElseThrow();
+            int bestMove = book.bestMove(position.getKey());
+            Assertions.assertEquals(mostPlayed, position.getValue().get(bestMove));
+            entries += position.getValue().size();
+        }
+        Assertions.assertEquals(entries, written);
+
+        // keys that were never added are not found
+        for(int i = 0; i < 10_000; i++)
+        {
+            long key = random.nextLong();
+            if(!expected.containsKey(key))
+            {
+                Assertions.assertEquals(-1, book.find(key));
+            }
+        }
+    }
+
+    @Test
+    public void find_AllocationFreeTest() throws Exception
+    {
+        OpeningBook book = build(1, "e2e4 e7e5 g1f3 b8c6", "d2d4 d7d5 c2c4");
+        long key = new ChessGame().zobristKey();
+        AllocationBudget.assertAllocationFree("OpeningBook.find", () -> book.find(key) >= 0);
+        AllocationBudget.assertAllocationFree("OpeningBook.bestMove(long)", () -> book.bestMove(key) != PackedMove.None);
+
+        ChessGame game = new ChessGame();
+        MoveList moves = new MoveList();
+        SplittableRandom random = new SplittableRandom(240);
+        AllocationBudget.assertAllocationFree("OpeningBook.bestMove(game, MoveList)",
+                () -> book.bestMove(game, moves) != PackedMove.None);
+        AllocationBudget.assertAllocationFree("OpeningBook.pickMove(game, random, MoveList)",
+                () -> book.pickMove(game, random, moves) != PackedMove.None);
+    }
+
+    @Test
+    public void open_RejectsOtherFilesTest() throws Exception
+    {
+        Path notABook = directory.resolve("not.book");
+        Files.writeString(notABook, "e2e4 e7e5 g1f3 b8c6 f1b5 a7a6");
+        Assertions.assertThrows(IOException.class, () -> OpeningBook.open(notABook));
+
+        Path truncated = directory.resolve("truncated.book");
+        build(1, "e2e4 e7e5");
+        byte[] bytes = Files.readAllBytes(directory.resolve("test.book"));
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        Assertions.assertThrows(IOException.class, () -> OpeningBook.open(truncated));
+    }
+
+    @Test
+    public void parseGame_RejectsBadTokensTest()
+    {
+        Assertions.assertEquals(List.of(move("e7e8q")), OpeningBookBuilder.parseGame(" e7e8q  0-1 "));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OpeningBookBuilder.parseGame("e2e4 Nf3"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OpeningBookBuilder.parseGame("e2e9"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OpeningBookBuilder.parseGame("e7e8k"));
+    }
+
+    @Test
+    public void addGame_IllegalMoveTest()
+    {
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> builder.addGame(OpeningBookBuilder.parseGame("e2e4 e2e4")));
+        // the moves before the illegal one still count
+        Assertions.assertEquals(1, builder.entries());
+    }
+
+    @Test
+    public void addPgn_AddsOpeningsTest() throws Exception
+    {
+        Path pgn = Files.writeString(directory.resolve("games.pgn"), """
+                [Event "one"]
+
+                1. e4 e5 2. Nf3 Nc6 1-0
+
+                [Event "two"]
+
+                1. e4 {the usual} c5 (1... e5) 2. Nf3 0-1
+
+                [Event "set up"]
+                [FEN "4k3/8/8/8/8/8/4P3/4K3 w - - 0 1"]
+
+                1. e4 *
+
+                [Event "bad"]
+
+                1. d4 Zz9 1/2-1/2
+                """);
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        List<String> problems = new CopyOnWriteArrayList<>();
+        Assertions.assertEquals(2, builder.addPgn(pgn, problems::add));
+        Assertions.assertEquals(3, builder.games());
+        Assertions.assertEquals(2, problems.size());
+        Assertions.assertTrue(problems.contains("skipped a game set up from 4k3/8/8/8/8/8/4P3/4K3 w - - 0 1"),
+                problems::toString);
+
+        Path path = directory.resolve("pgn.book");
+        builder.write(path, 1);
+        OpeningBook book = OpeningBook.open(path);
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(List.of(new OpeningBook.Choice(move("e2e4"), 2), new OpeningBook.Choice(move("d2d4"), 1)),
+                book.moves(game));
+        game.makeMove(PackedMove.pack(move("e2e4")));
+        Assertions.assertEquals(2, book.moves(game).size());
+    }
+
+    private OpeningBook build(int minWeight, String... games) throws Exception
+    {
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        for(String game : games)
+        {
+            builder.addGame(OpeningBookBuilder.parseGame(game));
+        }
+        Path path = directory.resolve("test.book");
+        builder.write(path, minWeight);
+        return OpeningBook.open(path);
+    }
+
+    /**
+     * Plays random legal moves from the start, tallying each position and move
+     */
+    private static List<ChessMove> randomGame(SplittableRandom random, int plies, Map<Long, Map<Integer, Integer>> tally)
+    {
+        ChessGame game = new ChessGame();
+        MoveList legal = new MoveList();
+        List<ChessMove> moves = new ArrayList<>();
+        for(int ply = 0; ply < plies; ply++)
+        {
+            legal.clear();
+            game.validMoves(game.getTeamTurn(), legal);
+            if(legal.isEmpty())
+            {
+                break;
+            }
+            int move = legal.get(random.nextInt(legal.size()));
+            tally.computeIfAbsent(game.zobristKey(), key -> new HashMap<>()).merge(move, 1, Integer::sum);
+            moves.add(PackedMove.unpack(move));
+            game.makeMove(move);
+        }
+        return moves;
+    }
+
+    private static ChessMove move(String coordinates)
+    {
+        return OpeningBookBuilder.parseGame(coordinates).getFirst();
+    }
+}
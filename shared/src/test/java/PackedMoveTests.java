@@ -0,0 +1,57 @@
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.PackedMove;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PackedMoveTests
+{
+    @Test
+    public void encode_RoundTripTest()
+    {
+        int move = PackedMove.encode(52, 60, ChessPiece.PieceType.KNIGHT);
+
+        Assertions.assertEquals(52, PackedMove.from(move));
+        Assertions.assertEquals(60, PackedMove.to(move));
+        Assertions.assertEquals(ChessPiece.PieceType.KNIGHT, PackedMove.promotion(move));
+        Assertions.assertNull(PackedMove.promotion(PackedMove.encode(8, 16, null)));
+    }
+
+    @Test
+    public void pack_FitsInShortTest()
+    {
+        ChessMove move = new ChessMove(new ChessPosition(7, 8), new ChessPosition(8, 8), ChessPiece.PieceType.QUEEN);
+        short stored = (short) PackedMove.pack(move);
+
+        Assertions.assertEquals(move, PackedMove.unpack(stored & 0xFFFF));
+    }
+
+    @Test
+    public void unpack_LosslessForEveryMoveTest()
+    {
+        for(int from = 0; from < 64; from++)
+        {
+            for(int to = 0; to < 64; to++)
+            {
+                for(ChessPiece.PieceType promotion : ChessPiece.PieceType.values())
+                {
+                    ChessMove move = new ChessMove(ChessPosition.of(from), ChessPosition.of(to), promotion);
+                    Assertions.assertEquals(move, PackedMove.unpack(PackedMove.pack(move)));
+                }
+                ChessMove move = new ChessMove(ChessPosition.of(from), ChessPosition.of(to), null);
+                Assertions.assertEquals(move, PackedMove.unpack(PackedMove.pack(move)));
+            }
+        }
+    }
+
+    @Test
+    public void unpack_SharesInstancesTest()
+    {
+        int knightJump = PackedMove.encode(1, 18, null);
+        int promotion = PackedMove.encode(12, 5, ChessPiece.PieceType.ROOK);
+
+        Assertions.assertSame(PackedMove.unpack(knightJump), PackedMove.unpack(knightJump));
+        Assertions.assertSame(PackedMove.unpack(promotion), PackedMove.unpack(promotion));
+    }
+}
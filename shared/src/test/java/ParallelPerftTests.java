@@ -0,0 +1,35 @@
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ParallelPerft;
+import chess.Perft;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+public class ParallelPerftTests
+{
+    @Test
+    public void count_MatchesSequentialTest()
+    {
+        try(ParallelPerft perft = new ParallelPerft(4))
+        {
+            for(Perft.Position position : Perft.Positions)
+            {
+                int depth = ParallelPerft.SequentialDepth + 1;
+                Assertions.assertEquals(position.expected(depth), perft.count(position.newGame(), depth), position.name());
+            }
+        }
+    }
+
+    @Test
+    public void divide_MatchesSequentialTest()
+    {
+        ChessGame game = Perft.Positions.get(1).newGame();
+        try(ParallelPerft perft = new ParallelPerft(3))
+        {
+            Map<ChessMove, Long> parallel = perft.divide(game, ParallelPerft.SequentialDepth + 1);
+            Assertions.assertEquals(Perft.divide(game, ParallelPerft.SequentialDepth + 1), parallel);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Perft;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.Map;
+
+public class PerftTests
+{
+    // deep enough to reach castling, en passant and promotions in every position, shallow enough to run with the build
+    private static final long NodeBudget = 5_000_000;
+
+    static List<Perft.Position> positions()
+    {
+        return Perft.Positions;
+    }
+
+    @ParameterizedTest
+    @MethodSource("positions")
+    public void count_MatchesKnownCountsTest(Perft.Position position)
+    {
+        for(int depth = 1; depth <= position.counts().length && position.expected(depth) <= NodeBudget; depth++)
+        {
+            Assertions.assertEquals(position.expected(depth), Perft.count(position.newGame(), depth),
+                    position.name() + " at depth " + depth);
+        }
+    }
+
+    @Test
+    public void divide_SumsToCountTest()
+    {
+        Perft.Position kiwipete = Perft.Positions.get(1);
+        ChessGame game = kiwipete.newGame();
+        Map<ChessMove, Long> divide = Perft.divide(game, 3);
+
+        Assertions.assertEquals(kiwipete.expected(1), divide.size());
+        Assertions.assertEquals(kiwipete.expected(3), divide.values().stream().mapToLong(Long::longValue).sum());
+        Assertions.assertEquals(kiwipete.newGame(), game);
+    }
+
+    @ParameterizedTest
+    @MethodSource("positions")
+    @EnabledIfSystemProperty(named = "perft.deep", matches = "true")
+    public void count_DeepTest(Perft.Position position)
+    {
+        int depth = position.counts().length;
+        Assertions.assertEquals(position.expected(depth), Perft.count(position.newGame(), depth), position.name());
+    }
+}
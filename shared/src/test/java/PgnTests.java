@@ -0,0 +1,181 @@
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.PgnGame;
+import chess.PgnReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class PgnTests
+{
+    private static final String Opera = """
+            [Event "Paris"]
+            [Site "Paris FRA"]
+            [Date "1858.??.??"]
+            [White "Morphy, Paul"]
+            [Black "Duke Karl / Count Isouard"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 d6 3. d4 Bg4 {This is a weak move already.} 4. dxe5 Bxf3 5. Qxf3 dxe5
+            6. Bc4 Nf6 7. Qb3 Qe7 8. Nc3 c6 9. Bg5 b5 10. Nxb5 cxb5 11. Bxb5+ Nbd7
+            12. O-O-O Rd8 13. Rxd7 Rxd7 14. Rd1 Qe6 15. Bxd7+ Nxd7 16. Qb8+ Nxb8 17. Rd8# 1-0
+            """;
+
+    @Test
+    public void parse_FamousGameTest()
+    {
+        PgnGame game = PgnReader.parse(Opera);
+        Assertions.assertNull(game.error());
+        Assertions.assertEquals("Morphy, Paul", game.tag("White"));
+        Assertions.assertEquals(6, game.tags().size());
+        Assertions.assertEquals("1-0", game.result());
+        Assertions.assertEquals(33, game.moves().size());
+        Assertions.assertEquals(new ChessMove(ChessPosition.of(1, 5), ChessPosition.of(1, 3), null), game.moves().get(22));
+
+        ChessGame end = game.replay();
+        Assertions.assertTrue(end.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    public void parse_SkipsAnnotationsTest()
+    {
+        PgnGame game = PgnReader.parse("""
+                [Event "?"]
+                % an escaped line: 1. h4
+                1.e4 $1 e5!? (1... c5 2. Nf3 {Sicilian (the main line)} (2. c3) d6) 2.Nf3; a comment to the end of the line
+                2...Nc6 {another
+                comment over two lines} 3. Bb5 a6 *
+                """);
+        Assertions.assertNull(game.error());
+        Assertions.assertEquals(6, game.moves().size());
+        Assertions.assertEquals("*", game.result());
+        Assertions.assertEquals(Fen.parse("r1bqkbnr/1ppp1ppp/p1n5/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 0 4"),
+                game.replay());
+    }
+
+    @Test
+    public void parse_DisambiguationAndPromotionTest()
+    {
+        // both knights reach d2 and both rooks reach e1; the pawn takes on b8 and promotes
+        PgnGame game = PgnReader.parse("""
+                [FEN "1r2k3/P7/8/8/8/1N3N2/7K/R4R2 w - - 0 1"]
+                [SetUp "1"]
+
+                1. Nbd2 Kf7 2. Rae1 Kg6 3. axb8=N *
+                """);
+        Assertions.assertNull(game.error());
+        ChessGame end = game.replay();
+        Assertions.assertEquals(Fen.parse("1N6/8/6k1/8/8/5N2/3N3K/4RR2 b - - 0 3"), end);
+    }
+
+    @Test
+    public void parse_AmbiguousMoveTest()
+    {
+        PgnGame game = PgnReader.parse("""
+                [FEN "4k3/8/8/8/8/1N3N2/8/4K3 w - - 0 1"]
+
+                1. Nd2 *
+                """);
+        Assertions.assertNotNull(game.error());
+        Assertions.assertTrue(game.moves().isEmpty());
+    }
+
+    @Test
+    public void parse_InvalidMoveKeepsEarlierMovesTest()
+    {
+        PgnGame game = PgnReader.parse("1. e4 e5 2. Ke3 Nc6 *");
+        Assertions.assertEquals(2, game.moves().size());
+        Assertions.assertTrue(game.error().contains("Ke3"), game.error());
+    }
+
+    @Test
+    public void parse_EnPassantAndCastlingTest()
+    {
+        PgnGame game = PgnReader.parse("1. e4 Nf6 2. e5 d5 3. exd6 exd6 4. Nf3 Be7 5. Bc4 0-0 6. O-O 1/2-1/2");
+        Assertions.assertNull(game.error());
+        Assertions.assertEquals("1/2-1/2", game.result());
+        ChessGame end = game.replay();
+        Assertions.assertEquals(ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING),
+                end.getBoard().getPiece(ChessPosition.of(8, 7)));
+        Assertions.assertEquals(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK),
+                end.getBoard().getPiece(ChessPosition.of(1, 6)));
+    }
+
+    @Test
+    public void games_StreamsLargeFileTest(@TempDir Path directory) throws Exception
+    {
+        // enough games to cross many buffer refills, with multi-byte names split across them
+        Path file = directory.resolve("games.pgn");
+        StringBuilder text = new StringBuilder("\uFEFF");
+        int count = 2000;
+        for(int i = 0; i < count; i++)
+        {
+            text.append(Opera.replace("Paris\"]", "Paris " + i + "\"]").replace("Duke Karl", "Hérzog Kärl " + i));
+            text.append('\n');
+        }
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+
+        List<PgnGame> games;
+        try(Stream<PgnGame> stream = PgnReader.games(file))
+        {
+            games = stream.toList();
+        }
+        Assertions.assertEquals(count, games.size());
+        for(int i = 0; i < count; i++)
+        {
+            PgnGame game = games.get(i);
+            Assertions.assertNull(game.error(), game.error());
+            Assertions.assertEquals("Paris " + i, game.tag("Event"));
+            Assertions.assertEquals("Hérzog Kärl " + i + " / Count Isouard", game.tag("Black"));
+            Assertions.assertEquals(33, game.moves().size());
+        }
+    }
+
+    @Test
+    public void games_CommentsAndBadGamesTest(@TempDir Path directory) throws Exception
+    {
+        Path file = directory.resolve("games.pgn");
+        Files.writeString(file, """
+                [Event "first"]
+                1. e4 e5 {a comment with
+                [a bracket at the start of a line]} 2. Nf3 *
+
+                [Event "second"]
+                1. e4 e4 *
+
+                [Event "third"]
+                [FEN "not a position"]
+                1. e4 *
+                """);
+        List<PgnGame> games;
+        try(Stream<PgnGame> stream = PgnReader.games(file))
+        {
+            games = stream.toList();
+        }
+        Assertions.assertEquals(3, games.size());
+        Assertions.assertNull(games.get(0).error());
+        Assertions.assertEquals(3, games.get(0).moves().size());
+        Assertions.assertNotNull(games.get(1).error());
+        Assertions.assertEquals(1, games.get(1).moves().size());
+        Assertions.assertNotNull(games.get(2).error());
+    }
+
+    @Test
+    public void games_EmptyFileTest(@TempDir Path directory) throws Exception
+    {
+        Path file = Files.writeString(directory.resolve("empty.pgn"), "\n\n");
+        try(Stream<PgnGame> stream = PgnReader.games(file))
+        {
+            Assertions.assertEquals(0, stream.count());
+        }
+    }
+}
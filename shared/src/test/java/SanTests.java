@@ -0,0 +1,108 @@
+import chess.ChessGame;
+import chess.Fen;
+import chess.MoveList;
+import chess.PackedMove;
+import chess.Perft;
+import chess.San;
+import chess.Uci;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Random;
+
+public class SanTests
+{
+    @ParameterizedTest
+    @CsvSource({
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1, e2e4, e4",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1, g1f3, Nf3",
+            "r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1, e1g1, O-O",
+            "r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 0 1, e8c8, O-O-O",
+            "4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1, e5d6, exd6",
+            "1r2k3/P7/8/8/8/8/8/4K3 w - - 0 1, a7b8n, axb8=N",
+            "4k3/P7/8/8/8/8/8/4K3 w - - 0 1, a7a8q, a8=Q+",
+            // knights on b1 and f3 can both reach d2, so the column says which
+            "4k3/8/8/8/8/5N2/8/1N2K3 w - - 0 1, b1d2, Nbd2",
+            // rooks on a1 and a5 share a column, so the row says which
+            "4k3/8/8/R7/8/8/8/R3K3 w - - 0 1, a1a3, R1a3",
+            // queens on e4, h4 and h1 can all reach e1, so only the whole square says which
+            "6k1/8/8/8/4Q2Q/8/8/K6Q w - - 0 1, h4e1, Qh4e1",
+            // the other knight is pinned, so naming it is not needed
+            "4k3/4r3/8/8/8/5N2/4N3/4K3 w - - 0 1, f3d4, Nd4",
+            "6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1, a1a8, Ra8#",
+            "6k1/5ppp/8/8/8/8/8/r5K1 w - - 0 1, g1h2, Kh2"
+    })
+    public void encode_KnownMovesTest(String fen, String uci, String san)
+    {
+        ChessGame game = Fen.parse(fen);
+        int move = Uci.decode(game, uci);
+        Assertions.assertNotEquals(PackedMove.None, move, uci);
+        Assertions.assertEquals(san, San.encode(game, move));
+        Assertions.assertEquals(move, San.decode(game, san));
+        Assertions.assertEquals(Fen.parse(fen), game);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1, Ng1f3, g1f3",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1, e4!?, e2e4",
+            "r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1, 0-0-0, e1c1",
+            "1r2k3/P7/8/8/8/8/8/4K3 w - - 0 1, axb8Q, a7b8q",
+            "1r2k3/P7/8/8/8/8/8/4K3 w - - 0 1, axb8=q+, a7b8q"
+    })
+    public void decode_VariantsTest(String fen, String san, String uci)
+    {
+        ChessGame game = Fen.parse(fen);
+        Assertions.assertEquals(Uci.decode(game, uci), San.decode(game, san));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "4k3/8/8/8/8/5N2/8/1N2K3 w - - 0 1, Nd2",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1, e5",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1, O-O",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1, Zf3",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1, N",
+            "4k3/P7/8/8/8/8/8/4K3 w - - 0 1, a8"
+    })
+    public void decode_RejectsTest(String fen, String san)
+    {
+        Assertions.assertEquals(PackedMove.None, San.decode(Fen.parse(fen), san));
+    }
+
+    @Test
+    public void encode_RoundTripsEveryMoveTest()
+    {
+        // every valid move in positions along random games reads back from what it writes
+        Random random = new Random(240);
+        MoveList moves = new MoveList();
+        MoveList scratch = new MoveList();
+        StringBuilder text = new StringBuilder();
+        for(Perft.Position position : Perft.Positions)
+        {
+            for(int games = 0; games < 5; games++)
+            {
+                ChessGame game = position.newGame();
+                for(int ply = 0; ply < 40; ply++)
+                {
+                    moves.clear();
+                    game.validMoves(game.getTeamTurn(), moves);
+                    if(moves.isEmpty())
+                    {
+                        break;
+                    }
+                    for(int i = 0; i < moves.size(); i++)
+                    {
+                        text.setLength(0);
+                        San.encode(game, moves.get(i), text, scratch);
+                        Assertions.assertEquals(moves.get(i), San.decode(game, text, 0, text.length(), scratch),
+                                () -> text + " in " + Fen.write(game));
+                    }
+                    game.makeMove(moves.get(random.nextInt(moves.size())));
+                }
+            }
+        }
+    }
+}
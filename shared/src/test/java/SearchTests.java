@@ -0,0 +1,139 @@
+import chess.ChessGame;
+import chess.Fen;
+import chess.PackedMove;
+import chess.Uci;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class SearchTests
+{
+    @Test
+    public void search_FindsBackRankMateTest()
+    {
+        ChessGame game = Fen.parse("6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(4));
+        Assertions.assertEquals(Uci.decode(game, "d1d8"), PackedMove.pack(result.bestMove()));
+        Assertions.assertEquals(Search.Mate - 1, result.score());
+        Assertions.assertTrue(Search.isMateScore(result.score()));
+    }
+
+    @Test
+    public void search_FindsMateInTwoTest()
+    {
+        // the rook ladder: the first rook cuts the king off, the second mates
+        ChessGame game = Fen.parse("7k/8/8/8/8/8/R7/1R4K1 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(5));
+        Assertions.assertEquals(Search.Mate - 3, result.score());
+        Assertions.assertEquals(3, result.principalVariation().size());
+        Assertions.assertEquals(result.bestMove(), result.principalVariation().getFirst());
+    }
+
+    @Test
+    public void search_TakesHangingQueenTest()
+    {
+        ChessGame game = Fen.parse("4k3/8/8/4q3/8/5N2/8/4K3 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+        Assertions.assertEquals(Uci.decode(game, "f3e5"), PackedMove.pack(result.bestMove()));
+        Assertions.assertTrue(result.score() > 0);
+    }
+
+    @Test
+    public void search_AvoidsPoisonedPawnTest()
+    {
+        // at depth 1 only the quiescence search sees the queen lost to the recapture
+        ChessGame game = Fen.parse("4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(1));
+        Assertions.assertNotEquals(Uci.decode(game, "d1d5"), PackedMove.pack(result.bestMove()));
+        Assertions.assertTrue(result.score() > 0);
+    }
+
+    @Test
+    public void search_LeavesGameUntouchedTest()
+    {
+        ChessGame game = new ChessGame();
+        ChessGame before = new ChessGame(game);
+        new Search().search(game, SearchLimits.depth(4));
+        Assertions.assertEquals(before, game);
+    }
+
+    @Test
+    public void search_NoLegalMoveTest()
+    {
+        ChessGame game = Fen.parse("7k/6Q1/6K1/8/8/8/8/8 b - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+        Assertions.assertNull(result.bestMove());
+        Assertions.assertEquals(-Search.Mate, result.score());
+    }
+
+    @Test
+    public void search_RepetitionBeforeRootTest()
+    {
+        // a queen down, black can only hold the draw by taking the king back to h8, which
+        // repeats the position from before Ke1-f1 and back
+        ChessGame game = Fen.parse("7k/8/8/8/8/8/8/3QK3 w - - 0 1");
+        for(String move : new String[]{"e1f1", "h8g8", "f1e1"})
+        {
+            game.makeMove(Uci.decode(game, move));
+        }
+
+        SearchResult result = new Search().search(game, SearchLimits.depth(4));
+        Assertions.assertEquals(Uci.decode(game, "g8h8"), PackedMove.pack(result.bestMove()));
+        Assertions.assertEquals(0, result.score());
+    }
+
+    @Test
+    public void search_StopsAtNodeBudgetTest()
+    {
+        SearchResult result = new Search().search(new ChessGame(), SearchLimits.nodes(20_000));
+        Assertions.assertNotNull(result.bestMove());
+        Assertions.assertTrue(result.depth() >= 1);
+        // limits are checked every thousand or so positions
+        Assertions.assertTrue(result.nodes() < 20_000 + 2_048, "visited " + result.nodes());
+    }
+
+    @Test
+    public void cancel_StopsSearchFromAnotherThreadTest() throws Exception
+    {
+        Search search = new Search();
+        CompletableFuture<SearchResult> running =
+                CompletableFuture.supplyAsync(() -> search.search(new ChessGame(), SearchLimits.depth(SearchLimits.MaxDepth)));
+        Thread.sleep(50);
+        search.cancel();
+
+        SearchResult result = running.get(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(result.bestMove());
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, new ChessGame().getBoard()
+                .getPiece(result.bestMove().getStartPosition()).getTeamColor());
+    }
+
+    @Test
+    public void lazySmp_FindsSameMateTest()
+    {
+        ChessGame game = Fen.parse("7k/8/8/8/8/8/R7/1R4K1 w - - 0 1");
+        SearchResult result = new Search(new TranspositionTable(16), 4).search(game, SearchLimits.depth(5));
+        Assertions.assertEquals(Search.Mate - 3, result.score());
+        Assertions.assertEquals(3, result.principalVariation().size());
+    }
+
+    @Test
+    public void lazySmp_StopsHelpersWithMainThreadTest() throws Exception
+    {
+        Search search = new Search(new TranspositionTable(16), 3);
+        CompletableFuture<SearchResult> running =
+                CompletableFuture.supplyAsync(() -> search.search(new ChessGame(), SearchLimits.depth(SearchLimits.MaxDepth)));
+        Thread.sleep(50);
+        search.cancel();
+
+        SearchResult result = running.get(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(result.bestMove());
+        Assertions.assertTrue(Thread.getAllStackTraces().keySet().stream()
+                .noneMatch(thread -> thread.getName().startsWith("search-helper")));
+    }
+}
@@ -0,0 +1,68 @@
+import chess.SlidingAttacks;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class SlidingAttacksTests
+{
+    private static final int[][] RookSteps = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BishopSteps = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    @Test
+    public void emptyBoard_RookCornerTest()
+    {
+        // a1 sees the whole first row and first column
+        Assertions.assertEquals(0x01010101010101FEL, SlidingAttacks.rookAttacks(0, 0L));
+    }
+
+    @Test
+    public void blockers_StopRaysTest()
+    {
+        // bishop on d4 with a blocker on f6 sees e5 and f6 but not g7
+        long occupied = 1L << 45;
+        long attacks = SlidingAttacks.bishopAttacks(27, occupied);
+
+        Assertions.assertNotEquals(0, attacks & (1L << 36));
+        Assertions.assertNotEquals(0, attacks & (1L << 45));
+        Assertions.assertEquals(0, attacks & (1L << 54));
+    }
+
+    @Test
+    public void randomOccupancies_MatchRayWalkTest()
+    {
+        Random random = new Random(240);
+        for(int i = 0; i < 2000; i++)
+        {
+            long occupied = random.nextLong() & random.nextLong();
+            for(int square = 0; square < 64; square++)
+            {
+                long rook = walk(square, occupied, RookSteps);
+                long bishop = walk(square, occupied, BishopSteps);
+
+                Assertions.assertEquals(rook, SlidingAttacks.rookAttacks(square, occupied));
+                Assertions.assertEquals(bishop, SlidingAttacks.bishopAttacks(square, occupied));
+                Assertions.assertEquals(rook | bishop, SlidingAttacks.queenAttacks(square, occupied));
+            }
+        }
+    }
+
+    private static long walk(int square, long occupied, int[][] steps)
+    {
+        long attacks = 0;
+        for(int[] step : steps)
+        {
+            for(int row = square / 8 + step[0], col = square % 8 + step[1];
+                row >= 0 && row < 8 && col >= 0 && col < 8;
+                row += step[0], col += step[1])
+            {
+                attacks |= 1L << (row * 8 + col);
+                if((occupied & (1L << (row * 8 + col))) != 0)
+                {
+                    break;
+                }
+            }
+        }
+        return attacks;
+    }
+}
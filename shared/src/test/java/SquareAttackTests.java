@@ -0,0 +1,65 @@
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+public class SquareAttackTests
+{
+    private static final ChessBoard Board = TestUtilities.loadBoard("""
+            | | | | |k| | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | |r| | | | | | |
+            | | | |p| | | | |
+            | | | | | | |N| |
+            | | | | |P| | | |
+            | | | | |K| | | |
+            """);
+
+    @Test
+    public void isSquareAttacked_ByEachPieceTypeTest()
+    {
+        Assertions.assertTrue(Board.isSquareAttacked(ChessPosition.of(3, 3), ChessGame.TeamColor.BLACK)); // pawn
+        Assertions.assertTrue(Board.isSquareAttacked(ChessPosition.of(5, 8), ChessGame.TeamColor.BLACK)); // rook
+        Assertions.assertTrue(Board.isSquareAttacked(ChessPosition.of(5, 6), ChessGame.TeamColor.WHITE)); // knight
+        Assertions.assertTrue(Board.isSquareAttacked(ChessPosition.of(3, 4), ChessGame.TeamColor.WHITE)); // pawn
+        Assertions.assertTrue(Board.isSquareAttacked(ChessPosition.of(7, 4), ChessGame.TeamColor.BLACK)); // king
+    }
+
+    @Test
+    public void isSquareAttacked_BlockedRayTest()
+    {
+        ChessBoard board = TestUtilities.loadBoard("""
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | |r| | | | | | |
+                | | | | | | | | |
+                | |P| | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """);
+
+        Assertions.assertTrue(board.isSquareAttacked(ChessPosition.of(3, 2), ChessGame.TeamColor.BLACK));
+        Assertions.assertFalse(board.isSquareAttacked(ChessPosition.of(2, 2), ChessGame.TeamColor.BLACK));
+        // pawns only attack diagonally
+        Assertions.assertFalse(Board.isSquareAttacked(ChessPosition.of(3, 4), ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    public void getKingSquare_TracksMovesTest()
+    {
+        ChessBoard board = new ChessBoard();
+        Assertions.assertEquals(ChessBoard.NoKing, board.getKingSquare(ChessGame.TeamColor.WHITE));
+
+        board.addPiece(ChessPosition.of(1, 5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.movePiece(ChessPosition.of(1, 5), ChessPosition.of(2, 6));
+        Assertions.assertEquals(ChessPosition.of(2, 6).getIndex(), board.getKingSquare(ChessGame.TeamColor.WHITE));
+
+        board.removePiece(ChessPosition.of(2, 6));
+        Assertions.assertEquals(ChessBoard.NoKing, board.getKingSquare(ChessGame.TeamColor.WHITE));
+    }
+}
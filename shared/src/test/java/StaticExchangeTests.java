@@ -0,0 +1,90 @@
+import chess.ChessGame;
+import chess.Fen;
+import chess.PackedMove;
+import chess.Uci;
+import chess.engine.StaticExchange;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class StaticExchangeTests
+{
+    @Test
+    public void isAtLeast_PawnTakesDefendedKnightTest()
+    {
+        ChessGame game = Fen.parse("4k3/8/4p3/3n4/4P3/8/8/4K3 w - - 0 1");
+        // wins the knight, loses the pawn back
+        assertExchange(game, "e4d5", 320 - 100);
+    }
+
+    @Test
+    public void isAtLeast_RookTakesDefendedPawnTest()
+    {
+        ChessGame game = Fen.parse("4k3/8/2p5/3p4/8/8/8/3R1K2 w - - 0 1");
+        assertExchange(game, "d1d5", 100 - 500);
+    }
+
+    @Test
+    public void isAtLeast_HangingQueenTest()
+    {
+        ChessGame game = Fen.parse("4k3/8/8/4q3/8/5N2/8/4K3 w - - 0 1");
+        assertExchange(game, "f3e5", 900);
+    }
+
+    @Test
+    public void isAtLeast_DoubledRooksXRayTest()
+    {
+        // the rook behind the first one only attacks d5 once the first has captured there
+        ChessGame game = Fen.parse("3r2k1/8/8/3p4/8/8/3R4/3R2K1 w - - 0 1");
+        assertExchange(game, "d2d5", 100);
+    }
+
+    @Test
+    public void isAtLeast_KingCannotRecaptureDefendedPieceTest()
+    {
+        ChessGame game = Fen.parse("6k1/5p2/8/7Q/2B5/8/8/6K1 w - - 0 1");
+        assertExchange(game, "h5f7", 100);
+        // without the bishop the king takes the queen back
+        assertExchange(Fen.parse("6k1/5p2/8/7Q/8/8/8/6K1 w - - 0 1"), "h5f7", 100 - 900);
+    }
+
+    @Test
+    public void isAtLeast_EnPassantTest()
+    {
+        ChessGame game = Fen.parse("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 2");
+        assertExchange(game, "e5d6", 100);
+    }
+
+    @Test
+    public void isAtLeast_PromotionTest()
+    {
+        ChessGame game = Fen.parse("3rk3/4P3/8/8/8/8/8/4K3 w - - 0 1");
+        // the new queen takes the rook, then the king takes the queen
+        assertExchange(game, "e7d8q", 500 + 900 - 100 - 900);
+        // quietly promoting onto a square nothing guards keeps the queen
+        assertExchange(Fen.parse("7k/4P3/8/8/8/8/8/4K3 w - - 0 1"), "e7e8q", 900 - 100);
+    }
+
+    @Test
+    public void isAtLeast_LosingSideKeepsRecapturingTest()
+    {
+        // Qxb3 Rxb3 axb3 Qxb3: having lost the queen, black still does better to take the rook
+        ChessGame game = Fen.parse("rnb1k1nr/3p1p2/pqpb2p1/2P1p1P1/p4P1p/1PRP4/4P1BP/1NBQ1KNR b kq - 0 12");
+        assertExchange(game, "b6b3", 100 - 900 + 500 - 100);
+    }
+
+    /**
+     * Checks that a move's exchange reaches every threshold up to its value and none above it
+     */
+    private static void assertExchange(ChessGame game, String uci, int expected)
+    {
+        int move = Uci.decode(game, uci);
+        Assertions.assertNotEquals(PackedMove.None, move, uci);
+        for(int threshold = expected - 200; threshold <= expected + 200; threshold += 50)
+        {
+            Assertions.assertEquals(expected >= threshold, StaticExchange.isAtLeast(game, move, threshold),
+                    "threshold " + threshold);
+        }
+        Assertions.assertTrue(StaticExchange.isAtLeast(game, move, expected));
+        Assertions.assertFalse(StaticExchange.isAtLeast(game, move, expected + 1));
+    }
+}
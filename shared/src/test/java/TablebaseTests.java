@@ -0,0 +1,254 @@
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Fen;
+import chess.MoveList;
+import chess.PackedMove;
+import chess.Tablebase;
+import chess.TablebaseGenerator;
+import chess.Tablebases;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Path;
+import java.util.Random;
+
+public class TablebaseTests
+{
+    private static TablebaseGenerator generator;
+    private static Tablebases tablebases;
+
+    @BeforeAll
+    public static void generate()
+    {
+        generator = new TablebaseGenerator(Math.min(4, Runtime.getRuntime().availableProcessors()));
+        for(String set : new String[] {"KQK", "KRK", "KPK"})
+        {
+            generator.generate(set);
+        }
+        tablebases = new Tablebases(generator.built());
+    }
+
+    @AfterAll
+    public static void close()
+    {
+        generator.close();
+    }
+
+    @Test
+    public void generate_LongestMatesTest()
+    {
+        // the known longest mates, counted from the losing side to move: 10, 16 and 28 moves
+        Assertions.assertEquals(20, generator.generate("KQK").longestMate());
+        Assertions.assertEquals(32, generator.generate("KRK").longestMate());
+        Assertions.assertEquals(56, generator.generate("KPK").longestMate());
+        Assertions.assertEquals(0, generator.generate("KNK").longestMate());
+        Assertions.assertEquals(0, generator.generate("KBK").longestMate());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "tablebase.deep", matches = "true")
+    public void generate_BishopAndKnightTest()
+    {
+        Assertions.assertEquals(66, generator.generate("KBNK").longestMate());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"KQK", "KRK", "KPK"})
+    public void probe_AgreesWithEveryMoveTest(String set)
+    {
+        // each value must be exactly what the best move's value makes it
+        Random random = new Random(240);
+        int checked = 0;
+        while(checked < 2000)
+        {
+            ChessGame game = randomPosition(random, set);
+            if(game == null)
+            {
+                continue;
+            }
+            Assertions.assertEquals(fromMoves(game), tablebases.probe(game), set + "\n" + game.getBoard());
+            checked++;
+        }
+    }
+
+    @Test
+    public void probe_KeySquareWinTest()
+    {
+        // a king two rows ahead of its pawn wins whoever is to move
+        for(ChessGame.TeamColor turn : ChessGame.TeamColor.values())
+        {
+            String fen = "4k3/8/4K3/4P3/8/8/8/8 " + (turn == ChessGame.TeamColor.WHITE ? "w" : "b") + " - - 0 1";
+            ChessGame game = game(fen);
+            Tablebases.Outcome expected = turn == ChessGame.TeamColor.WHITE ? Tablebases.Outcome.WIN
+                    : Tablebases.Outcome.LOSS;
+            Assertions.assertEquals(expected, game.getTablebaseResult().outcome());
+        }
+    }
+
+    @Test
+    public void probe_RookPawnDrawTest()
+    {
+        ChessGame game = game("k7/8/1K6/P7/8/8/8/8 w - - 0 1");
+        Assertions.assertEquals(new Tablebases.Result(Tablebases.Outcome.DRAW, 0), game.getTablebaseResult());
+    }
+
+    @Test
+    public void probe_EitherColorTest()
+    {
+        // the same position with the colors swapped and the board flipped has the same result
+        ChessGame white = game("8/8/8/3k4/8/4K3/4P3/8 b - - 0 1");
+        ChessGame black = game("8/4p3/4k3/8/3K4/8/8/8 w - - 0 1");
+        int value = tablebases.probe(white);
+        Assertions.assertNotEquals(Tablebases.Miss, value);
+        Assertions.assertEquals(value, tablebases.probe(black));
+    }
+
+    @Test
+    public void probe_MissTest()
+    {
+        Assertions.assertEquals(Tablebases.Miss, tablebases.probe(new ChessGame()));
+        ChessGame game = game("4k3/8/8/8/8/8/8/2BNK3 w - - 0 1");
+        Assertions.assertEquals(Tablebases.Miss, tablebases.probe(game));
+        Assertions.assertNull(game.getTablebaseResult());
+        Assertions.assertNull(new ChessGame().getTablebaseResult());
+    }
+
+    @Test
+    public void open_MappedMatchesGeneratedTest(@TempDir Path directory) throws Exception
+    {
+        for(Tablebase table : generator.built())
+        {
+            table.write(directory);
+        }
+        Tablebases opened = Tablebases.open(directory);
+        Assertions.assertEquals(tablebases.names().size(), opened.names().size());
+
+        Random random = new Random(240);
+        for(int i = 0; i < 2000; i++)
+        {
+            ChessGame game = randomPosition(random, "KRK");
+            if(game != null)
+            {
+                Assertions.assertEquals(tablebases.probe(game), opened.probe(game));
+            }
+        }
+    }
+
+    @Test
+    public void search_PlaysTablebaseMateTest()
+    {
+        ChessGame game = game("8/8/8/3k4/8/8/4K3/R7 w - - 0 1");
+        int value = tablebases.probe(game);
+        Assertions.assertTrue(Tablebase.isWin(value));
+
+        SearchResult result = new Search().search(game, SearchLimits.depth(2));
+        Assertions.assertEquals(Search.Mate - Tablebase.plies(value), result.score());
+        // the move chosen keeps the fastest mate
+        game.makeMove(PackedMove.pack(result.bestMove()));
+        Assertions.assertEquals(Tablebase.plies(value) - 1, Tablebase.plies(tablebases.probe(game)));
+    }
+
+    /**
+     * Places a set's pieces on random squares, with white holding the stronger side
+     *
+     * @return the game, or null if the position cannot occur
+     */
+    private static ChessGame randomPosition(Random random, String set)
+    {
+        ChessBoard board = new ChessBoard();
+        ChessGame.TeamColor team = ChessGame.TeamColor.WHITE;
+        for(int i = 0; i < set.length(); i++)
+        {
+            if(i > 0 && set.charAt(i) == 'K')
+            {
+                team = ChessGame.TeamColor.BLACK;
+            }
+            int square = random.nextInt(64);
+            if(board.getPiece(square) != null)
+            {
+                return null;
+            }
+            ChessPiece.PieceType type = switch(set.charAt(i))
+            {
+                case 'K' -> ChessPiece.PieceType.KING;
+                case 'Q' -> ChessPiece.PieceType.QUEEN;
+                case 'R' -> ChessPiece.PieceType.ROOK;
+                default -> ChessPiece.PieceType.PAWN;
+            };
+            if(type == ChessPiece.PieceType.PAWN && (square < 8 || square >= 56))
+            {
+                return null;
+            }
+            board.addPiece(square, ChessPiece.of(team, type));
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(random.nextBoolean() ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK);
+        game.setTablebases(tablebases);
+        if(game.getCastlingRights() != 0 || game.isInCheck(game.getTeamTurn().opponent()))
+        {
+            return null;
+        }
+        return game;
+    }
+
+    /**
+     * @return a position's value worked out from the values after each of its moves
+     */
+    private static int fromMoves(ChessGame game)
+    {
+        MoveList moves = new MoveList();
+        game.validMoves(game.getTeamTurn(), moves);
+        if(moves.isEmpty())
+        {
+            return game.isInCheck(game.getTeamTurn()) ? -1 : Tablebase.Draw;
+        }
+        int quickestWin = Integer.MAX_VALUE;
+        int longestLoss = -1;
+        boolean drawn = false;
+        for(int i = 0; i < moves.size(); i++)
+        {
+            game.makeMove(moves.get(i));
+            int value = tablebases.probe(game);
+            game.unmakeMove();
+            Assertions.assertNotEquals(Tablebases.Miss, value);
+            if(Tablebase.isLoss(value))
+            {
+                quickestWin = Math.min(quickestWin, Tablebase.plies(value) + 1);
+            }
+            else if(Tablebase.isWin(value))
+            {
+                longestLoss = Math.max(longestLoss, Tablebase.plies(value) + 1);
+            }
+            else
+            {
+                drawn = true;
+            }
+        }
+        if(quickestWin != Integer.MAX_VALUE)
+        {
+            return quickestWin;
+        }
+        return drawn ? Tablebase.Draw : -(longestLoss + 1);
+    }
+
+    /**
+     * @return a game at a position, probing the tablebases built for these tests
+     */
+    private static ChessGame game(String fen)
+    {
+        ChessGame game = Fen.parse(fen);
+        game.setTablebases(tablebases);
+        return game;
+    }
+}
@@ -0,0 +1,135 @@
+import chess.PackedMove;
+import chess.engine.TranspositionTable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TranspositionTableTests
+{
+    @Test
+    public void store_ProbeRoundTripTest()
+    {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = PackedMove.encode(52, 60, null);
+        table.store(0x1234_5678_9ABC_DEF0L, move, -321, -2, TranspositionTable.Bound.LOWER);
+
+        long entry = table.probe(0x1234_5678_9ABC_DEF0L);
+        Assertions.assertNotEquals(TranspositionTable.Miss, entry);
+        Assertions.assertEquals(move, TranspositionTable.move(entry));
+        Assertions.assertEquals(-321, TranspositionTable.score(entry));
+        Assertions.assertEquals(-2, TranspositionTable.depth(entry));
+        Assertions.assertEquals(TranspositionTable.Bound.LOWER, TranspositionTable.bound(entry));
+
+        // same bucket, different position
+        Assertions.assertEquals(TranspositionTable.Miss, table.probe(0x1234_5678_9ABC_DEF0L ^ (1L << 63)));
+    }
+
+    @Test
+    public void capacity_IsPowerOfTwoTest()
+    {
+        TranspositionTable table = new TranspositionTable(3);
+        Assertions.assertEquals(1, Long.bitCount(table.capacity()));
+        Assertions.assertTrue(table.capacity() * 16 <= 3 * 1024 * 1024);
+    }
+
+    @Test
+    public void store_ReplacesShallowestInFullBucketTest()
+    {
+        TranspositionTable table = new TranspositionTable(1, TranspositionTable.Replacement.DEPTH_PREFERRED);
+        // keys that differ only in their high bits share a bucket
+        for(int i = 0; i < TranspositionTable.BucketSize; i++)
+        {
+            table.store(((long) i << 48) | 7, PackedMove.None, 0, 10 + i, TranspositionTable.Bound.EXACT);
+        }
+        table.store((99L << 48) | 7, PackedMove.None, 0, 5, TranspositionTable.Bound.EXACT);
+
+        Assertions.assertEquals(TranspositionTable.Miss, table.probe(7));
+        for(int i = 1; i < TranspositionTable.BucketSize; i++)
+        {
+            Assertions.assertNotEquals(TranspositionTable.Miss, table.probe(((long) i << 48) | 7));
+        }
+        Assertions.assertNotEquals(TranspositionTable.Miss, table.probe((99L << 48) | 7));
+    }
+
+    @Test
+    public void store_AgedEntriesGiveWayTest()
+    {
+        TranspositionTable table = new TranspositionTable(1, TranspositionTable.Replacement.AGED);
+        table.store(7, PackedMove.None, 0, 20, TranspositionTable.Bound.EXACT);
+        table.newSearch();
+        table.newSearch();
+        for(int i = 1; i <= TranspositionTable.BucketSize; i++)
+        {
+            table.store(((long) i << 48) | 7, PackedMove.None, 0, 6, TranspositionTable.Bound.EXACT);
+        }
+        Assertions.assertEquals(TranspositionTable.Miss, table.probe(7));
+    }
+
+    @Test
+    public void store_KeepsMoveWhenNewResultHasNoneTest()
+    {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = PackedMove.encode(12, 28, null);
+        table.store(42, move, 15, 4, TranspositionTable.Bound.EXACT);
+        table.store(42, PackedMove.None, -30, 5, TranspositionTable.Bound.UPPER);
+
+        long entry = table.probe(42);
+        Assertions.assertEquals(move, TranspositionTable.move(entry));
+        Assertions.assertEquals(-30, TranspositionTable.score(entry));
+    }
+
+    @Test
+    public void concurrentStores_NeverReturnAnotherPositionsEntryTest() throws InterruptedException
+    {
+        // a tiny table and a few thousand keys, so threads keep overwriting each other's entries
+        TranspositionTable table = new TranspositionTable(1);
+        long[] keys = new SplittableRandom(15).longs(4096).map(k -> k & ~0xFFFL).toArray();
+        AtomicLong mismatches = new AtomicLong();
+        AtomicLong hits = new AtomicLong();
+
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < 4; t++)
+        {
+            int seed = t;
+            threads.add(new Thread(() ->
+            {
+                SplittableRandom random = new SplittableRandom(seed);
+                for(int i = 0; i < 500_000; i++)
+                {
+                    long key = keys[random.nextInt(keys.length)];
+                    long entry = table.probe(key);
+                    if(entry != TranspositionTable.Miss)
+                    {
+                        hits.incrementAndGet();
+                        if(TranspositionTable.score(entry) != expectedScore(key))
+                        {
+                            mismatches.incrementAndGet();
+                        }
+                    }
+                    table.store(key, PackedMove.None, expectedScore(key), random.nextInt(30),
+                            TranspositionTable.Bound.EXACT);
+                }
+            }));
+        }
+        for(Thread thread : threads)
+        {
+            thread.start();
+        }
+        for(Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        Assertions.assertTrue(hits.get() > 0);
+        Assertions.assertEquals(0, mismatches.get());
+    }
+
+    private static int expectedScore(long key)
+    {
+        return (short) (key >>> 32);
+    }
+}
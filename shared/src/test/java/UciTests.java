@@ -0,0 +1,74 @@
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Fen;
+import chess.MoveList;
+import chess.PackedMove;
+import chess.Perft;
+import chess.Uci;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class UciTests
+{
+    @Test
+    public void encode_MovesTest()
+    {
+        Assertions.assertEquals("e2e4", Uci.encode(PackedMove.encode(12, 28, null)));
+        Assertions.assertEquals("e7e8q", Uci.encode(PackedMove.encode(52, 60, ChessPiece.PieceType.QUEEN)));
+        Assertions.assertEquals("a2a1n", Uci.encode(PackedMove.encode(8, 0, ChessPiece.PieceType.KNIGHT)));
+
+        StringBuilder text = new StringBuilder("moves");
+        Uci.encode(PackedMove.encode(4, 6, null), text.append(' '));
+        Assertions.assertEquals("moves e1g1", text.toString());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "e2", "e2e", "e2e4qq", "i2e4", "e9e4", "e2e2", "e7e8k", "e7e8x"})
+    public void parse_RejectsTest(String text)
+    {
+        Assertions.assertEquals(PackedMove.None, Uci.parse(text, 0, text.length()));
+    }
+
+    @Test
+    public void parse_PartOfTextTest()
+    {
+        String line = "position startpos moves e2e4 e7e5";
+        Assertions.assertEquals(PackedMove.encode(52, 36, null), Uci.parse(line, 29, 33));
+        Assertions.assertEquals(PackedMove.encode(52, 60, ChessPiece.PieceType.ROOK), Uci.parse("e7e8R", 0, 5));
+    }
+
+    @Test
+    public void decode_ChecksValidityTest()
+    {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(PackedMove.encode(12, 28, null), Uci.decode(game, "e2e4"));
+        // a legal-looking move for the wrong team, an impossible move and an empty square
+        Assertions.assertEquals(PackedMove.None, Uci.decode(game, "e7e5"));
+        Assertions.assertEquals(PackedMove.None, Uci.decode(game, "e2e5"));
+        Assertions.assertEquals(PackedMove.None, Uci.decode(game, "e3e4"));
+        // a king move into check
+        Assertions.assertEquals(PackedMove.None, Uci.decode(Fen.parse("4k3/8/8/8/8/8/3r4/4K3 w - - 0 1"), "e1e2"));
+    }
+
+    @Test
+    public void decode_EveryValidMoveTest()
+    {
+        MoveList moves = new MoveList();
+        MoveList scratch = new MoveList();
+        StringBuilder text = new StringBuilder();
+        for(Perft.Position position : Perft.Positions)
+        {
+            ChessGame game = position.newGame();
+            game.validMoves(game.getTeamTurn(), moves);
+            for(int i = 0; i < moves.size(); i++)
+            {
+                text.setLength(0);
+                Uci.encode(moves.get(i), text);
+                Assertions.assertEquals(moves.get(i), Uci.decode(game, text, 0, text.length(), scratch), text::toString);
+            }
+            moves.clear();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+public class ZobristTests
+{
+    @Test
+    public void zobristKey_SamePiecesDifferentSquaresTest()
+    {
+        // same multiset of pieces, so the old additive hashCode could not tell these apart
+        ChessBoard a = TestUtilities.loadBoard("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |R| | | |K| | | |
+                """);
+        ChessBoard b = TestUtilities.loadBoard("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |K| | |R|
+                """);
+
+        Assertions.assertNotEquals(a.zobristKey(), b.zobristKey());
+    }
+
+    @Test
+    public void zobristKey_IncrementalMatchesFreshBoardTest()
+    {
+        ChessBoard board = TestUtilities.defaultBoard();
+        board.movePiece(ChessPosition.of(2, 5), ChessPosition.of(4, 5));
+        board.movePiece(ChessPosition.of(7, 4), ChessPosition.of(5, 4));
+        board.movePiece(ChessPosition.of(4, 5), ChessPosition.of(5, 4));
+
+        ChessBoard expected = TestUtilities.loadBoard("""
+                |r|n|b|q|k|b|n|r|
+                |p|p|p| |p|p|p|p|
+                | | | | | | | | |
+                | | | |P| | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |P|P|P|P| |P|P|P|
+                |R|N|B|Q|K|B|N|R|
+                """);
+
+        Assertions.assertEquals(expected.zobristKey(), board.zobristKey());
+        Assertions.assertEquals(expected.hashCode(), board.hashCode());
+        Assertions.assertEquals(expected, board);
+    }
+
+    @Test
+    public void removePiece_RestoresKeyTest()
+    {
+        ChessBoard board = new ChessBoard();
+        long empty = board.zobristKey();
+        ChessPiece queen = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
+
+        board.addPiece(ChessPosition.of(4, 4), queen);
+        Assertions.assertNotEquals(empty, board.zobristKey());
+
+        Assertions.assertSame(queen, board.removePiece(ChessPosition.of(4, 4)));
+        Assertions.assertEquals(empty, board.zobristKey());
+        Assertions.assertNull(board.getPiece(ChessPosition.of(4, 4)));
+    }
+
+    @Test
+    public void movePiece_EmptySquareLeavesBoardTest()
+    {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessBoard before = new ChessBoard(board);
+        long key = board.zobristKey();
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> board.movePiece(ChessPosition.of(4, 5), ChessPosition.of(2, 5)));
+        Assertions.assertEquals(before, board);
+        Assertions.assertEquals(key, board.zobristKey());
+    }
+}